@@ -4,15 +4,23 @@ import algorithms.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Entry point for the application.
  */
 public class Main {
+    /** Number of landmarks used by A* + Landmarks */
+    private static final int LANDMARKS = 8;
+    
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
-            Grid grid = new Grid(30, 30);
+            Grid grid = args.length > 0 ? loadGrid(Paths.get(args[0])) : new Grid(30, 30);
             VisualizerPanel panel = new VisualizerPanel(grid);
+            // Landmarks saved next to the map, replaced once the grid is edited
+            Landmarks[] landmarks = { args.length > 0 ? loadLandmarks(Paths.get(args[0]), grid) : null };
             
             JFrame frame = new JFrame("Pathfinding Visualizer");
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -27,6 +35,13 @@ public class Main {
             JButton chooseStartButton = new JButton("Choose Start");
             JButton chooseEndButton = new JButton("Choose End");
             JButton placeWallsButton = new JButton("Place Walls");
+            JButton placeMudButton = new JButton("Place Mud");
+            JButton placeWaterButton = new JButton("Place Water");
+            JButton saveButton = new JButton("Save Map");
+            JComboBox<String> movesBox = new JComboBox<>(new String[] { "4-way", "8-way", "8-way, cut corners", "8-way, any" });
+            movesBox.setSelectedIndex(grid.getConnectivity().ordinal());
+            JCheckBox statsBox = new JCheckBox("Stats");
+            JCheckBox fieldBox = new JCheckBox("Heatmap");
             
             findPathButton.addActionListener(e -> panel.findPath());
             clearButton.addActionListener(e -> panel.clearPath());
@@ -34,6 +49,11 @@ public class Main {
             chooseStartButton.addActionListener(e -> panel.setMode("START"));
             chooseEndButton.addActionListener(e -> panel.setMode("END"));
             placeWallsButton.addActionListener(e -> panel.setMode("WALL"));
+            placeMudButton.addActionListener(e -> panel.setMode("MUD"));
+            placeWaterButton.addActionListener(e -> panel.setMode("WATER"));
+            saveButton.addActionListener(e -> saveGrid(frame, grid, landmarks[0]));
+            statsBox.addActionListener(e -> panel.setShowStats(statsBox.isSelected()));
+            fieldBox.addActionListener(e -> panel.setShowField(fieldBox.isSelected()));
             
             buttonPanel.add(findPathButton);
             buttonPanel.add(clearButton);
@@ -41,31 +61,102 @@ public class Main {
             buttonPanel.add(chooseStartButton);
             buttonPanel.add(chooseEndButton);
             buttonPanel.add(placeWallsButton);
+            buttonPanel.add(placeMudButton);
+            buttonPanel.add(placeWaterButton);
+            buttonPanel.add(saveButton);
+            buttonPanel.add(new JLabel("Moves"));
+            buttonPanel.add(movesBox);
+            buttonPanel.add(statsBox);
+            buttonPanel.add(fieldBox);
             
             JPanel algorithmPanel = new JPanel();
             algorithmPanel.setBorder(BorderFactory.createTitledBorder("Algorithm"));
             ButtonGroup algorithmGroup = new ButtonGroup();
             JRadioButton aStarButton = new JRadioButton("A*", true);
             JRadioButton dijkstraButton = new JRadioButton("Dijkstra");
+            JRadioButton dialButton = new JRadioButton("Dial Dijkstra");
             JRadioButton bfsButton = new JRadioButton("BFS");
+            JRadioButton bitBfsButton = new JRadioButton("Bit-parallel BFS");
+            JRadioButton parallelBfsButton = new JRadioButton("Parallel BFS");
+            JRadioButton deltaSteppingButton = new JRadioButton("Delta-stepping");
             JRadioButton dfsButton = new JRadioButton("DFS");
+            JRadioButton jpsButton = new JRadioButton("JPS");
+            JRadioButton biBfsButton = new JRadioButton("Bidirectional BFS");
+            JRadioButton biAStarButton = new JRadioButton("Bidirectional A*");
+            JRadioButton dStarLiteButton = new JRadioButton("D* Lite");
+            JRadioButton hpaButton = new JRadioButton("HPA*");
+            JRadioButton altButton = new JRadioButton("A* + Landmarks");
             
             algorithmGroup.add(aStarButton);
             algorithmGroup.add(dijkstraButton);
+            algorithmGroup.add(dialButton);
             algorithmGroup.add(bfsButton);
+            algorithmGroup.add(bitBfsButton);
+            algorithmGroup.add(parallelBfsButton);
+            algorithmGroup.add(deltaSteppingButton);
             algorithmGroup.add(dfsButton);
+            algorithmGroup.add(jpsButton);
+            algorithmGroup.add(biBfsButton);
+            algorithmGroup.add(biAStarButton);
+            algorithmGroup.add(dStarLiteButton);
+            algorithmGroup.add(hpaButton);
+            algorithmGroup.add(altButton);
             
-            aStarButton.addActionListener(e -> panel.setAlgorithm(new AStar(grid, panel)));
-            dijkstraButton.addActionListener(e -> panel.setAlgorithm(new Dijkstra(grid, panel)));
-            bfsButton.addActionListener(e -> panel.setAlgorithm(new BFS(grid, panel)));
-            dfsButton.addActionListener(e -> panel.setAlgorithm(new DFS(grid, panel)));
+            aStarButton.addActionListener(e -> panel.setAlgorithm(new AStar(grid)));
+            dijkstraButton.addActionListener(e -> panel.setAlgorithm(new Dijkstra(grid)));
+            dialButton.addActionListener(e -> panel.setAlgorithm(new DialDijkstra(grid)));
+            bfsButton.addActionListener(e -> panel.setAlgorithm(new BFS(grid)));
+            bitBfsButton.addActionListener(e -> panel.setAlgorithm(new BitParallelBFS(grid)));
+            parallelBfsButton.addActionListener(e -> panel.setAlgorithm(new ParallelBFS(grid)));
+            deltaSteppingButton.addActionListener(e -> panel.setAlgorithm(new DeltaStepping(grid)));
+            dfsButton.addActionListener(e -> panel.setAlgorithm(new DFS(grid)));
+            jpsButton.addActionListener(e -> panel.setAlgorithm(new JumpPointSearch(grid)));
+            biBfsButton.addActionListener(e -> panel.setAlgorithm(new BidirectionalBFS(grid)));
+            biAStarButton.addActionListener(e -> panel.setAlgorithm(new BidirectionalAStar(grid)));
+            // D* Lite keeps its state between runs, so reuse one instance
+            DStarLite dStarLite = new DStarLite(grid);
+            dStarLiteButton.addActionListener(e -> panel.setAlgorithm(dStarLite));
+            // HPA* keeps its cluster graph up to date through grid edits
+            HierarchicalPathfinder hpa = new HierarchicalPathfinder(grid);
+            hpaButton.addActionListener(e -> panel.setAlgorithm(hpa));
+            // Landmarks go stale when the grid is edited, so recompute them
+            // in the background on selection if needed
+            altButton.addActionListener(e -> useLandmarks(altButton, panel, grid, landmarks));
+            
+            // JPS and bit-parallel BFS only move orthogonally, so they are
+            // unavailable while diagonal moves are allowed
+            Runnable updateMoves = () -> {
+                boolean diagonal = grid.getConnectivity().hasDiagonals();
+                jpsButton.setEnabled(!diagonal);
+                bitBfsButton.setEnabled(!diagonal);
+                if (diagonal && (jpsButton.isSelected() || bitBfsButton.isSelected())) {
+                    aStarButton.doClick();
+                }
+            };
+            updateMoves.run();
+            movesBox.addActionListener(e -> {
+                panel.clearPath();
+                grid.setConnectivity(Connectivity.values()[movesBox.getSelectedIndex()]);
+                updateMoves.run();
+            });
             
             algorithmPanel.add(aStarButton);
             algorithmPanel.add(dijkstraButton);
+            algorithmPanel.add(dialButton);
             algorithmPanel.add(bfsButton);
+            algorithmPanel.add(bitBfsButton);
+            algorithmPanel.add(parallelBfsButton);
+            algorithmPanel.add(deltaSteppingButton);
             algorithmPanel.add(dfsButton);
+            algorithmPanel.add(jpsButton);
+            algorithmPanel.add(biBfsButton);
+            algorithmPanel.add(biAStarButton);
+            algorithmPanel.add(dStarLiteButton);
+            algorithmPanel.add(hpaButton);
+            algorithmPanel.add(altButton);
             
             controlPanel.add(algorithmPanel, BorderLayout.NORTH);
+            controlPanel.add(createPlaybackPanel(frame, panel), BorderLayout.CENTER);
             controlPanel.add(buttonPanel, BorderLayout.SOUTH);
             
             // Wrap panel in a container to center it
@@ -90,5 +181,176 @@ public class Main {
             frame.setVisible(true);
         });
     }
+    
+    /**
+     * Switches to A* + Landmarks, first computing the landmarks on a
+     * background thread if they are missing or stale. The switch happens
+     * when they are ready, unless another algorithm was chosen meanwhile.
+     */
+    private static void useLandmarks(JRadioButton button, VisualizerPanel panel, Grid grid, Landmarks[] landmarks) {
+        if (landmarks[0] != null && landmarks[0].isCurrent(grid)) {
+            panel.setAlgorithm(new AStar(grid, landmarks[0]));
+            return;
+        }
+        if (!button.isEnabled()) return;
+        button.setEnabled(false);
+        new SwingWorker<Landmarks, Void>() {
+            @Override
+            protected Landmarks doInBackground() throws InterruptedException {
+                return Landmarks.compute(grid, LANDMARKS);
+            }
+            
+            @Override
+            protected void done() {
+                button.setEnabled(true);
+                try {
+                    landmarks[0] = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(panel, "Could not compute landmarks: " + e.getMessage(),
+                            "A* + Landmarks", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                // Edits made while computing leave the landmarks stale, so try again
+                if (button.isSelected()) {
+                    useLandmarks(button, panel, grid, landmarks);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Builds the trace playback controls: play/pause, single step, a scrub
+     * slider, speed and frame rate, and saving and loading traces.
+     */
+    private static JPanel createPlaybackPanel(JFrame frame, VisualizerPanel panel) {
+        TracePlayer player = panel.getPlayer();
+        JPanel playbackPanel = new JPanel();
+        playbackPanel.setBorder(BorderFactory.createTitledBorder("Playback"));
+        
+        JButton playButton = new JButton("Play");
+        JButton stepButton = new JButton("Step");
+        JSlider scrubSlider = new JSlider(0, 0, 0);
+        JComboBox<Integer> speedBox = new JComboBox<>(new Integer[] { 1, 5, 25, 100, 1000 });
+        JComboBox<Integer> fpsBox = new JComboBox<>(new Integer[] { 15, 30, 60 });
+        JButton saveTraceButton = new JButton("Save Trace");
+        JButton loadTraceButton = new JButton("Load Trace");
+        fpsBox.setSelectedItem(60);
+        
+        playButton.addActionListener(e -> {
+            if (player.isPlaying()) {
+                player.pause();
+            } else {
+                player.resume();
+            }
+        });
+        stepButton.addActionListener(e -> player.step());
+        scrubSlider.addChangeListener(e -> {
+            if (scrubSlider.getValue() != player.getPosition()) {
+                player.pause();
+                player.seek(scrubSlider.getValue());
+            }
+        });
+        speedBox.addActionListener(e -> player.setEventsPerFrame((Integer) speedBox.getSelectedItem()));
+        fpsBox.addActionListener(e -> player.setFps((Integer) fpsBox.getSelectedItem()));
+        saveTraceButton.addActionListener(e -> saveTrace(frame, player.getTrace()));
+        loadTraceButton.addActionListener(e -> loadTrace(frame, panel));
+        
+        // Keep the controls in sync with the player
+        player.addChangeListener(e -> {
+            int size = player.getTrace() == null ? 0 : player.getTrace().size();
+            scrubSlider.getModel().setRangeProperties(player.getPosition(), 0, 0, size, false);
+            playButton.setText(player.isPlaying() ? "Pause" : "Play");
+        });
+        
+        playbackPanel.add(playButton);
+        playbackPanel.add(stepButton);
+        playbackPanel.add(scrubSlider);
+        playbackPanel.add(new JLabel("Events/frame"));
+        playbackPanel.add(speedBox);
+        playbackPanel.add(new JLabel("FPS"));
+        playbackPanel.add(fpsBox);
+        playbackPanel.add(saveTraceButton);
+        playbackPanel.add(loadTraceButton);
+        return playbackPanel;
+    }
+    
+    /**
+     * Asks for a destination and saves the last recorded trace.
+     */
+    private static void saveTrace(JFrame frame, SearchTrace trace) {
+        if (trace == null) {
+            JOptionPane.showMessageDialog(frame, "Run a search first.", "Save Trace", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            trace.save(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Could not save trace: " + e.getMessage(),
+                    "Save Trace", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Asks for a trace file and plays it on the current grid.
+     */
+    private static void loadTrace(JFrame frame, VisualizerPanel panel) {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            panel.playTrace(SearchTrace.load(chooser.getSelectedFile().toPath()));
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(frame, "Could not load trace: " + e.getMessage(),
+                    "Load Trace", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Loads a map file given on the command line, falling back to an empty
+     * grid if it cannot be read.
+     */
+    private static Grid loadGrid(Path path) {
+        try {
+            return MapFile.load(path);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Could not load " + path + ": " + e.getMessage(),
+                    "Load Map", JOptionPane.ERROR_MESSAGE);
+            return new Grid(30, 30);
+        }
+    }
+    
+    /**
+     * Loads the landmarks saved next to a map file, if there are any that
+     * match the map.
+     */
+    private static Landmarks loadLandmarks(Path mapPath, Grid grid) {
+        Path path = Landmarks.sidecar(mapPath);
+        if (!Files.exists(path)) return null;
+        try {
+            return Landmarks.load(path, grid);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Asks for a destination and saves the grid in the binary map format,
+     * along with its landmarks if they are current.
+     */
+    private static void saveGrid(JFrame frame, Grid grid, Landmarks landmarks) {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            Path path = chooser.getSelectedFile().toPath();
+            MapFile.save(grid, path);
+            if (landmarks != null && landmarks.isCurrent(grid)) {
+                landmarks.save(Landmarks.sidecar(path));
+            }
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(frame, "Could not save map: " + e.getMessage(),
+                    "Save Map", JOptionPane.ERROR_MESSAGE);
+        }
+    }
 }
 
@@ -1,110 +1,121 @@
 package algorithms;
 
 import model.*;
-import ui.*;
-import java.util.*;
 
 /**
- * A* pathfinding algorithm using Manhattan distance heuristic.
+ * A* pathfinding algorithm using Manhattan distance heuristic, or octile
+ * distance when diagonal moves are allowed. Every cell costs at least 1,
+ * so the heuristic stays admissible on weighted grids.
+ * <p>
+ * Given {@link Landmarks}, A* also uses their ALT lower bound and takes
+ * whichever bound is larger. Landmarks that are stale for the grid are
+ * ignored.
  */
-public class AStar implements Pathfinder {
-    private Grid grid;
-    private VisualizerPanel panel;
+public class AStar extends AbstractPathfinder {
+    private final Landmarks landmarks;
+    
+    /** Landmark distances of the current end, or null without landmarks */
+    private int[] target;
     
     /**
      * Creates an A* pathfinder.
      * 
      * @param grid The grid to search
-     * @param panel The visualization panel
      */
-    public AStar(Grid grid, VisualizerPanel panel) {
-        this.grid = grid;
-        this.panel = panel;
+    public AStar(GridMap grid) {
+        this(grid, null);
+    }
+    
+    /**
+     * Creates an A* pathfinder that uses landmark lower bounds.
+     * 
+     * @param grid The grid to search
+     * @param landmarks Landmarks computed on the grid, or null
+     */
+    public AStar(GridMap grid, Landmarks landmarks) {
+        super(grid);
+        this.landmarks = landmarks;
     }
     
     /**
      * Finds path using A* algorithm.
      * 
-     * @return true if path found, false otherwise
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
      * @throws InterruptedException
      */
-    public boolean findPath() throws InterruptedException {
-        grid.clearPath();
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        begin();
+        target = landmarks != null && landmarks.isCurrent(grid) ? landmarks.target(end) : null;
         
-        PriorityQueue<Cell> openSet = new PriorityQueue<>((a, b) -> {
-            if (a.fCost != b.fCost) return a.fCost - b.fCost;
-            return a.hCost - b.hCost;
-        });
+        int[] gCost = state.gCost;
+        int[] hCost = state.hCost;
+        IndexedHeap openSet = state.heap();
         
-        Set<Cell> closedSet = new HashSet<>();
-        Cell start = grid.getStartCell();
-        Cell end = grid.getEndCell();
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        int expansions = 0;
         
-        start.gCost = 0;
-        start.hCost = heuristic(start, end);
-        start.fCost = start.gCost + start.hCost;
-        openSet.add(start);
+        state.reach(start, 0, SearchState.NONE);
+        hCost[start] = heuristic(start, end);
+        openSet.push(start, key(start));
         
         while (!openSet.isEmpty()) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
-            }
+            Cancellation.check(expansions);
             
-            Cell current = openSet.poll();
+            int current = openSet.pop();
+            pops++;
+            expansions++;
             
             if (current == end) {
-                reconstructPath(current);
-                return true;
+                return found(current, gCost[current], expansions);
             }
             
-            closedSet.add(current);
+            state.close(current);
             
-            if (current != start && current != end) {
-                current.type = Cell.CellType.VISITED;
-                panel.repaint();
-                Thread.sleep(10);
+            if (current != start) {
+                visit(current);
             }
             
-            for (Cell neighbor : grid.getNeighbors(current)) {
-                if (closedSet.contains(neighbor)) continue;
+            int count = grid.getNeighbors(current, neighbors);
+            generated += count;
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (state.isClosed(neighbor)) continue;
                 
-                int tentativeGCost = current.gCost + 1;
+                int tentativeGCost = gCost[current] + grid.stepCost(current, neighbor);
                 
-                if (!openSet.contains(neighbor)) {
-                    neighbor.gCost = tentativeGCost;
-                    neighbor.hCost = heuristic(neighbor, end);
-                    neighbor.fCost = neighbor.gCost + neighbor.hCost;
-                    neighbor.parent = current;
-                    openSet.add(neighbor);
-                } else if (tentativeGCost < neighbor.gCost) {
-                    neighbor.gCost = tentativeGCost;
-                    neighbor.fCost = neighbor.gCost + neighbor.hCost;
-                    neighbor.parent = current;
+                if (!state.isReached(neighbor)) {
+                    state.reach(neighbor, tentativeGCost, current);
+                    hCost[neighbor] = heuristic(neighbor, end);
+                    openSet.push(neighbor, key(neighbor));
+                    push(neighbor);
+                } else if (tentativeGCost < gCost[neighbor]) {
+                    state.reach(neighbor, tentativeGCost, current);
+                    openSet.decreaseKey(neighbor, key(neighbor));
                 }
             }
+            frontier(openSet.size());
         }
         
-        return false;
+        return notFound(expansions);
     }
     
     /**
-     * Calculates Manhattan distance between two cells.
+     * Packs the open-list ordering: lowest fCost first, ties broken by the
+     * lower hCost.
      */
-    private int heuristic(Cell a, Cell b) {
-        return Math.abs(a.row - b.row) + Math.abs(a.col - b.col);
+    private long key(int index) {
+        long fCost = state.gCost[index] + state.hCost[index];
+        return (fCost << 32) | state.hCost[index];
     }
     
     /**
-     * Reconstructs path by following parent pointers.
+     * Calculates Manhattan distance on four-way grids and octile distance
+     * on eight-way grids, raised to the landmark bound when there is one.
      */
-    private void reconstructPath(Cell current) {
-        while (current != null && current != grid.getStartCell()) {
-            if (current != grid.getEndCell()) {
-                current.type = Cell.CellType.PATH;
-            }
-            current = current.parent;
-        }
-        panel.repaint();
+    private int heuristic(int a, int b) {
+        int distance = grid.distance(a, b);
+        return target == null ? distance : Math.max(distance, landmarks.lowerBound(a, target));
     }
 }
-
@@ -0,0 +1,151 @@
+package algorithms;
+
+import model.*;
+
+/**
+ * Base class holding the grid, scratch state, observer and search counters
+ * shared by the grid pathfinders.
+ * <p>
+ * Subclasses start each search with {@link #begin()}, add to the counters
+ * as they go, and finish with {@code found} or {@link #notFound}, which
+ * attach the counters to the result and record them in the algorithm's
+ * {@link SearchMetrics}.
+ */
+public abstract class AbstractPathfinder implements Pathfinder {
+    final GridMap grid;
+    final SearchState state;
+    SearchObserver observer;
+    
+    /** Counters of the running search, cleared by begin() */
+    long generated, pushes, pops;
+    int peakFrontier;
+    private long startNanos;
+    private final SearchMetrics metrics;
+    
+    /**
+     * Creates a pathfinder for a grid.
+     * 
+     * @param grid The grid to search
+     */
+    AbstractPathfinder(GridMap grid) {
+        this.grid = grid;
+        this.state = new SearchState(grid.size());
+        this.metrics = SearchMetrics.forAlgorithm(getClass().getSimpleName());
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return observer;
+    }
+    
+    /**
+     * Starts a search: resets the scratch state and the counters and
+     * starts the clock.
+     */
+    void begin() {
+        state.reset();
+        startCounters();
+    }
+    
+    /**
+     * Resets the counters and starts the clock without touching the
+     * scratch state.
+     */
+    void startCounters() {
+        generated = 0;
+        pushes = 0;
+        pops = 0;
+        peakFrontier = 0;
+        startNanos = System.nanoTime();
+    }
+    
+    /**
+     * Records the current open list size.
+     */
+    void frontier(int size) {
+        if (size > peakFrontier) {
+            peakFrontier = size;
+        }
+    }
+    
+    /**
+     * Reports an expanded cell to the observer, if any.
+     */
+    void visit(int index) throws InterruptedException {
+        if (observer != null) {
+            observer.onVisit(index);
+        }
+    }
+    
+    /**
+     * Reports a cell added to the frontier to the observer, if any.
+     */
+    void push(int index) {
+        pushes++;
+        if (observer != null) {
+            observer.onPush(index);
+        }
+    }
+    
+    /**
+     * Builds the result for a found path by following parent pointers.
+     * 
+     * @param end The end cell index
+     * @param cost The path cost
+     * @param expansions Number of expanded nodes
+     */
+    SearchResult found(int end, int cost, int expansions) {
+        return found(state.pathTo(end), cost, expansions);
+    }
+    
+    /**
+     * Builds the result for a found path on a unit-cost search, where the
+     * cost is the number of steps.
+     * 
+     * @param end The end cell index
+     * @param expansions Number of expanded nodes
+     */
+    SearchResult found(int end, int expansions) {
+        int[] path = state.pathTo(end);
+        return found(path, path.length - 1, expansions);
+    }
+    
+    /**
+     * Builds the result for a found path and reports it to the observer.
+     * 
+     * @param path Cell indices from start to end
+     * @param cost The path cost
+     * @param expansions Number of expanded nodes
+     */
+    SearchResult found(int[] path, int cost, int expansions) {
+        SearchStats stats = finish(path.length - 1, cost, expansions);
+        if (observer != null) {
+            observer.onPath(path);
+        }
+        return new SearchResult(path, cost, stats);
+    }
+    
+    /**
+     * Builds the result for a search that found no path.
+     * 
+     * @param expansions Number of expanded nodes
+     */
+    SearchResult notFound(int expansions) {
+        return SearchResult.notFound(finish(-1, -1, expansions));
+    }
+    
+    /**
+     * Stops the clock and records the counters of the finished search.
+     */
+    private SearchStats finish(int pathLength, int cost, int expansions) {
+        SearchStats stats = new SearchStats(expansions, generated, pushes, pops, peakFrontier,
+                                            pathLength, cost, System.nanoTime() - startNanos);
+        metrics.record(stats);
+        return stats;
+    }
+}
@@ -1,85 +1,69 @@
 package algorithms;
 
 import model.*;
-import ui.*;
-import java.util.*;
 
 /**
- * Breadth-First Search pathfinding algorithm.
+ * Breadth-First Search pathfinding algorithm. Ignores cell costs and finds
+ * the path with the fewest steps.
  */
-public class BFS implements Pathfinder {
-    private Grid grid;
-    private VisualizerPanel panel;
+public class BFS extends AbstractPathfinder {
     
     /**
      * Creates a BFS pathfinder.
      * 
      * @param grid The grid to search
-     * @param panel The visualization panel
      */
-    public BFS(Grid grid, VisualizerPanel panel) {
-        this.grid = grid;
-        this.panel = panel;
+    public BFS(GridMap grid) {
+        super(grid);
     }
     
     /**
      * Finds path using BFS algorithm.
      * 
-     * @return true if path found, false otherwise
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
      * @throws InterruptedException
      */
-    public boolean findPath() throws InterruptedException {
-        grid.clearPath();
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        begin();
         
-        Queue<Cell> queue = new LinkedList<>();
-        Set<Cell> visited = new HashSet<>();
-        Cell start = grid.getStartCell();
-        Cell end = grid.getEndCell();
+        int[] queue = state.queue();
+        int head = 0, tail = 0;
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        int expansions = 0;
         
-        queue.add(start);
-        visited.add(start);
+        queue[tail++] = start;
+        state.reach(start, 0, SearchState.NONE);
         
-        while (!queue.isEmpty()) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
-            }
+        while (head < tail) {
+            Cancellation.check(expansions);
             
-            Cell current = queue.poll();
+            int current = queue[head++];
+            pops++;
+            expansions++;
             
             if (current == end) {
-                reconstructPath(current);
-                return true;
+                return found(current, expansions);
             }
             
-            if (current != start && current != end) {
-                current.type = Cell.CellType.VISITED;
-                panel.repaint();
-                Thread.sleep(10);
+            if (current != start) {
+                visit(current);
             }
             
-            for (Cell neighbor : grid.getNeighbors(current)) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    neighbor.parent = current;
-                    queue.add(neighbor);
+            int count = grid.getNeighbors(current, neighbors);
+            generated += count;
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (!state.isReached(neighbor)) {
+                    state.reach(neighbor, 0, current);
+                    queue[tail++] = neighbor;
+                    push(neighbor);
                 }
             }
+            frontier(tail - head);
         }
         
-        return false;
-    }
-    
-    /**
-     * Reconstructs path by following parent pointers.
-     */
-    private void reconstructPath(Cell current) {
-        while (current != null && current != grid.getStartCell()) {
-            if (current != grid.getEndCell()) {
-                current.type = Cell.CellType.PATH;
-            }
-            current = current.parent;
-        }
-        panel.repaint();
+        return notFound(expansions);
     }
 }
-
@@ -0,0 +1,82 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of a batch of searches, in the order the queries were given,
+ * together with aggregate throughput.
+ */
+public class BatchResult {
+    private final SearchResult[] results;
+    private final long elapsedNanos;
+    
+    /**
+     * Creates a batch result.
+     * 
+     * @param results One result per query, in input order
+     * @param elapsedNanos Wall-clock time for the whole batch
+     */
+    public BatchResult(SearchResult[] results, long elapsedNanos) {
+        this.results = results;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    /**
+     * Gets the results in input order.
+     */
+    public List<SearchResult> getResults() {
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+    
+    /**
+     * Gets the result of one query.
+     */
+    public SearchResult get(int query) {
+        return results[query];
+    }
+    
+    /**
+     * Gets the number of queries.
+     */
+    public int size() {
+        return results.length;
+    }
+    
+    /**
+     * Gets the wall-clock time for the whole batch.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    /**
+     * Gets the number of queries answered per second.
+     */
+    public double getQueriesPerSecond() {
+        return elapsedNanos == 0 ? 0 : results.length * 1e9 / elapsedNanos;
+    }
+    
+    /**
+     * Gets the number of queries that found a path.
+     */
+    public int getFoundCount() {
+        int found = 0;
+        for (SearchResult result : results) {
+            if (result.isFound()) found++;
+        }
+        return found;
+    }
+    
+    /**
+     * Gets the number of expanded nodes summed over all queries.
+     */
+    public long getTotalExpansions() {
+        long total = 0;
+        for (SearchResult result : results) {
+            total += result.getExpansions();
+        }
+        return total;
+    }
+}
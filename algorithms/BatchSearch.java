@@ -0,0 +1,117 @@
+package algorithms;
+
+import model.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Runs many independent queries against one read-only map in parallel.
+ * <p>
+ * Each worker thread lazily creates its own pathfinder through the factory,
+ * so scratch space is per thread and never shared. The map must not change
+ * while a batch runs; pass a {@link GridSnapshot} when the source grid is
+ * still being edited.
+ */
+public class BatchSearch {
+    private static final int CHUNKS_PER_THREAD = 4;
+    
+    private final GridMap map;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final ThreadLocal<Pathfinder> pathfinders;
+    
+    /**
+     * Creates a batch search that runs on the common ForkJoinPool.
+     * 
+     * @param map The map to search, not modified during a batch
+     * @param factory Creates a pathfinder for the map
+     */
+    public BatchSearch(GridMap map, Function<GridMap, Pathfinder> factory) {
+        this(map, factory, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+    
+    /**
+     * Creates a batch search that runs on the given executor.
+     * 
+     * @param map The map to search, not modified during a batch
+     * @param factory Creates a pathfinder for the map
+     * @param executor Executor that runs the queries
+     * @param parallelism Number of threads the executor can use
+     */
+    public BatchSearch(GridMap map, Function<GridMap, Pathfinder> factory,
+                       ExecutorService executor, int parallelism) {
+        this.map = map;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.pathfinders = ThreadLocal.withInitial(() -> factory.apply(map));
+    }
+    
+    /**
+     * Runs one query per endpoint pair.
+     * 
+     * @param starts Start cell indices
+     * @param ends End cell indices, same length as starts
+     * @return Results in input order with aggregate timing
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public BatchResult run(int[] starts, int[] ends) throws InterruptedException {
+        if (starts.length != ends.length) {
+            throw new IllegalArgumentException("starts and ends must have the same length");
+        }
+        
+        SearchResult[] results = new SearchResult[starts.length];
+        int chunks = Math.min(starts.length, parallelism * CHUNKS_PER_THREAD);
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) starts.length * chunk / chunks);
+            int to = (int) ((long) starts.length * (chunk + 1) / chunks);
+            tasks.add(() -> {
+                Pathfinder pathfinder = pathfinders.get();
+                for (int i = from; i < to; i++) {
+                    results[i] = pathfinder.findPath(starts[i], ends[i]);
+                }
+                return null;
+            });
+        }
+        
+        long begin = System.nanoTime();
+        List<Future<Void>> futures = executor.invokeAll(tasks);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof InterruptedException) throw (InterruptedException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException("Search failed", cause);
+            }
+        }
+        return new BatchResult(results, System.nanoTime() - begin);
+    }
+    
+    /**
+     * Runs one query per endpoint pair.
+     * 
+     * @param pairs Endpoint pairs as {@code {start, end}} arrays
+     * @return Results in input order with aggregate timing
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public BatchResult run(List<int[]> pairs) throws InterruptedException {
+        int[] starts = new int[pairs.size()];
+        int[] ends = new int[pairs.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = pairs.get(i)[0];
+            ends[i] = pairs.get(i)[1];
+        }
+        return run(starts, ends);
+    }
+    
+    /**
+     * Gets the map the queries run against.
+     */
+    public GridMap getMap() {
+        return map;
+    }
+}
@@ -0,0 +1,101 @@
+package algorithms;
+
+import model.*;
+
+/**
+ * A* that expands alternately from the start toward the end and from the
+ * end toward the start, using the step distance to the opposite root.
+ * <p>
+ * With a consistent heuristic, a frontier's smallest fCost is a lower
+ * bound on every path through its unexpanded cells. The search stops once
+ * either frontier's smallest fCost reaches the best meeting cost.
+ */
+public class BidirectionalAStar extends BidirectionalSearch {
+    
+    /**
+     * Creates a sequential bidirectional A* pathfinder.
+     * 
+     * @param grid The grid to search
+     */
+    public BidirectionalAStar(GridMap grid) {
+        this(grid, false);
+    }
+    
+    /**
+     * Creates a bidirectional A* pathfinder.
+     * 
+     * @param grid The grid to search
+     * @param parallel Whether each frontier runs on its own thread
+     */
+    public BidirectionalAStar(GridMap grid, boolean parallel) {
+        super(grid, parallel);
+    }
+    
+    @Override
+    void init(Frontier side) {
+        side.state.hCost[side.root] = heuristic(side.root, side.target);
+        side.relax(side.root, 0, SearchState.NONE);
+        side.state.heap().push(side.root, key(side, side.root, 0));
+    }
+    
+    @Override
+    int frontierSize(Frontier side) {
+        return side.state.heap().size();
+    }
+    
+    @Override
+    boolean step(Frontier side) throws InterruptedException {
+        IndexedHeap openSet = side.state.heap();
+        if (openSet.isEmpty()) return false;
+        
+        side.top = (int) (openSet.peekKey() >>> 32);
+        if (side.top >= bestCost) return false;
+        
+        int current = openSet.pop();
+        side.pops++;
+        side.expansions++;
+        side.state.close(current);
+        
+        if (current != side.root) {
+            visit(current);
+        }
+        
+        int[] neighbors = side.neighbors;
+        int[] hCost = side.state.hCost;
+        int tentativeGCost = side.cost(current) + 1;
+        int count = grid.getNeighbors(current, neighbors);
+        side.generated += count;
+        for (int i = 0; i < count; i++) {
+            int neighbor = neighbors[i];
+            if (side.state.isClosed(neighbor)) continue;
+            
+            if (tentativeGCost < side.cost(neighbor)) {
+                if (!openSet.contains(neighbor)) {
+                    hCost[neighbor] = heuristic(neighbor, side.target);
+                    side.pushes++;
+                }
+                side.relax(neighbor, tentativeGCost, current);
+                openSet.update(neighbor, key(side, neighbor, tentativeGCost));
+            }
+        }
+        side.peakFrontier = Math.max(side.peakFrontier, openSet.size());
+        return true;
+    }
+    
+    /**
+     * Packs the open-list ordering: lowest fCost first, ties broken by the
+     * lower hCost.
+     */
+    private static long key(Frontier side, int index, int gCost) {
+        long fCost = gCost + side.state.hCost[index];
+        return (fCost << 32) | side.state.hCost[index];
+    }
+    
+    /**
+     * Calculates the fewest steps between two cells: Manhattan distance on
+     * four-way grids and Chebyshev distance on eight-way grids.
+     */
+    private int heuristic(int a, int b) {
+        return grid.steps(a, b);
+    }
+}
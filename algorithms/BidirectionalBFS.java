@@ -0,0 +1,78 @@
+package algorithms;
+
+import model.*;
+
+/**
+ * Breadth-first search that expands whole layers alternately from the
+ * start and the end.
+ * <p>
+ * Each frontier publishes the depth of its next unexpanded layer. Every
+ * path no longer than the sum of both depths has already been seen by one
+ * of the frontiers, so the search stops once the best meeting costs no
+ * more than that sum.
+ */
+public class BidirectionalBFS extends BidirectionalSearch {
+    
+    /**
+     * Creates a sequential bidirectional BFS pathfinder.
+     * 
+     * @param grid The grid to search
+     */
+    public BidirectionalBFS(GridMap grid) {
+        this(grid, false);
+    }
+    
+    /**
+     * Creates a bidirectional BFS pathfinder.
+     * 
+     * @param grid The grid to search
+     * @param parallel Whether each frontier runs on its own thread
+     */
+    public BidirectionalBFS(GridMap grid, boolean parallel) {
+        super(grid, parallel);
+    }
+    
+    @Override
+    void init(Frontier side) {
+        side.state.queue()[side.tail++] = side.root;
+        side.relax(side.root, 0, SearchState.NONE);
+    }
+    
+    @Override
+    int frontierSize(Frontier side) {
+        return side.tail - side.head;
+    }
+    
+    @Override
+    boolean step(Frontier side) throws InterruptedException {
+        int[] queue = side.state.queue();
+        int levelEnd = side.tail;
+        if (side.head == levelEnd) return false;
+        
+        int[] neighbors = side.neighbors;
+        while (side.head < levelEnd) {
+            int current = queue[side.head++];
+            side.pops++;
+            side.expansions++;
+            
+            if (current != side.root) {
+                visit(current);
+            }
+            
+            int depth = side.cost(current) + 1;
+            int count = grid.getNeighbors(current, neighbors);
+            side.generated += count;
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (side.cost(neighbor) == INFINITY) {
+                    side.pushes++;
+                    queue[side.tail++] = neighbor;
+                    side.relax(neighbor, depth, current);
+                }
+            }
+        }
+        side.peakFrontier = Math.max(side.peakFrontier, side.tail - side.head);
+        side.top++;
+        return bestCost > side.top + side.other.top;
+    }
+}
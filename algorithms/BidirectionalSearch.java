@@ -0,0 +1,258 @@
+package algorithms;
+
+import model.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Base class for searches that grow one frontier from the start and one
+ * from the end until they meet.
+ * <p>
+ * Distances live in {@link AtomicLongArray}s so the two frontiers can also
+ * run on separate threads. Each side sets its own distance with a volatile
+ * write and then reads the other side's distance with a volatile read. So
+ * whenever both frontiers reach the same cell, at least one of them sees
+ * the meeting and records it. Each entry carries the search generation in
+ * its high word, so starting a search does not have to clear the arrays.
+ * <p>
+ * Both directions count steps and ignore cell costs.
+ */
+public abstract class BidirectionalSearch extends AbstractPathfinder {
+    static final int INFINITY = Integer.MAX_VALUE;
+    
+    final Frontier forward;
+    final Frontier backward;
+    private final boolean parallel;
+    
+    /** Generation tag of the current search, never 0 */
+    private int generation;
+    
+    /** Cost of the best path seen so far, read without locking */
+    volatile int bestCost;
+    private int meet;
+    private volatile boolean done;
+    
+    /** Serializes observer callbacks from the two threads of a parallel search */
+    private final Object observerLock = new Object();
+    
+    /**
+     * One direction of the search.
+     */
+    final class Frontier {
+        final SearchState state;
+        final AtomicLongArray gCost;
+        final int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        Frontier other;
+        int root;
+        int target;
+        int expansions;
+        
+        /** Counters of this side, merged into the result */
+        long generated, pushes, pops;
+        int peakFrontier;
+        
+        /** Smallest key still waiting to be expanded */
+        volatile int top;
+        
+        /** Queue bounds for breadth-first frontiers */
+        int head, tail;
+        
+        Frontier(SearchState state) {
+            this.state = state;
+            this.gCost = new AtomicLongArray(state.parent.length);
+        }
+        
+        void reset(int root, int target) {
+            this.root = root;
+            this.target = target;
+            this.expansions = 0;
+            this.generated = 0;
+            this.pushes = 0;
+            this.pops = 0;
+            this.peakFrontier = 0;
+            this.top = 0;
+            this.head = 0;
+            this.tail = 0;
+            state.reset();
+        }
+        
+        /**
+         * Gets the distance of a cell from this side's root, or INFINITY.
+         */
+        int cost(int cell) {
+            long entry = gCost.get(cell);
+            return (int) (entry >>> 32) == generation ? (int) entry : INFINITY;
+        }
+        
+        /**
+         * Records a new distance for a cell and checks whether the other
+         * frontier has already reached it.
+         */
+        void relax(int cell, int cost, int parent) {
+            gCost.set(cell, ((long) generation << 32) | cost);
+            state.parent[cell] = parent;
+            int otherCost = other.cost(cell);
+            if (otherCost != INFINITY) {
+                offer(cell, cost + otherCost);
+            }
+        }
+    }
+    
+    /**
+     * Creates a bidirectional search.
+     * 
+     * @param grid The grid to search
+     * @param parallel Whether each frontier runs on its own thread
+     */
+    BidirectionalSearch(GridMap grid, boolean parallel) {
+        super(grid);
+        this.parallel = parallel;
+        this.forward = new Frontier(state);
+        this.backward = new Frontier(new SearchState(grid.size()));
+        forward.other = backward;
+        backward.other = forward;
+    }
+    
+    /**
+     * Seeds a frontier with its root cell.
+     */
+    abstract void init(Frontier side);
+    
+    /**
+     * Gets the number of cells waiting to be expanded on one side.
+     */
+    abstract int frontierSize(Frontier side);
+    
+    /**
+     * Expands part of a frontier.
+     * 
+     * @return false once the search can stop
+     */
+    abstract boolean step(Frontier side) throws InterruptedException;
+    
+    /**
+     * Finds path by searching from both ends.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        startCounters();
+        if (++generation == 0) {
+            for (int i = 0; i < grid.size(); i++) {
+                forward.gCost.set(i, 0L);
+                backward.gCost.set(i, 0L);
+            }
+            generation = 1;
+        }
+        forward.reset(start, end);
+        backward.reset(end, start);
+        bestCost = INFINITY;
+        meet = SearchState.NONE;
+        done = false;
+        
+        init(forward);
+        init(backward);
+        
+        if (parallel) {
+            runParallel();
+        } else {
+            runSequential();
+        }
+        
+        int expansions = forward.expansions + backward.expansions;
+        generated = forward.generated + backward.generated;
+        pushes = forward.pushes + backward.pushes;
+        pops = forward.pops + backward.pops;
+        peakFrontier = forward.peakFrontier + backward.peakFrontier;
+        if (meet == SearchState.NONE) {
+            return notFound(expansions);
+        }
+        
+        int[] head = forward.state.pathTo(meet);
+        int[] tail = backward.state.pathTo(meet);
+        int[] path = new int[head.length + tail.length - 1];
+        System.arraycopy(head, 0, path, 0, head.length);
+        for (int i = 1; i < tail.length; i++) {
+            path[head.length + i - 1] = tail[tail.length - 1 - i];
+        }
+        return found(path, bestCost, expansions);
+    }
+    
+    /**
+     * Alternates between frontiers, always growing the smaller one.
+     */
+    private void runSequential() throws InterruptedException {
+        for (long steps = 0; ; steps++) {
+            Cancellation.check(steps);
+            Frontier side = frontierSize(forward) <= frontierSize(backward) ? forward : backward;
+            if (!step(side)) return;
+        }
+    }
+    
+    /**
+     * Grows the backward frontier on a helper thread while the calling
+     * thread grows the forward one. Whichever side finishes first stops
+     * the other.
+     */
+    private void runParallel() throws InterruptedException {
+        Throwable[] failure = new Throwable[1];
+        Thread helper = new Thread(() -> {
+            try {
+                expand(backward);
+            } catch (InterruptedException e) {
+                // Stopped by the forward side or the caller
+            } catch (RuntimeException | Error e) {
+                failure[0] = e;
+            } finally {
+                done = true;
+            }
+        }, "bidirectional-backward");
+        helper.start();
+        try {
+            expand(forward);
+        } finally {
+            // A cancelled search must not return while the helper still
+            // touches the backward frontier the next search reuses
+            done = true;
+            Cancellation.join(helper);
+        }
+        if (failure[0] instanceof RuntimeException) throw (RuntimeException) failure[0];
+        if (failure[0] instanceof Error) throw (Error) failure[0];
+    }
+    
+    private void expand(Frontier side) throws InterruptedException {
+        for (long steps = 0; !done; steps++) {
+            Cancellation.check(steps);
+            if (!step(side)) return;
+        }
+    }
+    
+    /**
+     * Reports an expanded cell to the observer. In parallel mode both
+     * threads expand cells, so their reports are serialized because
+     * observers such as {@link SearchTrace} are not thread-safe.
+     */
+    @Override
+    void visit(int index) throws InterruptedException {
+        if (observer == null) return;
+        if (parallel) {
+            synchronized (observerLock) {
+                observer.onVisit(index);
+            }
+        } else {
+            observer.onVisit(index);
+        }
+    }
+    
+    /**
+     * Records a path through a meeting cell if it beats the best so far.
+     */
+    private synchronized void offer(int cell, int cost) {
+        if (cost < bestCost) {
+            bestCost = cost;
+            meet = cell;
+        }
+    }
+}
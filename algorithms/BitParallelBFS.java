@@ -0,0 +1,305 @@
+package algorithms;
+
+import model.*;
+import java.util.Arrays;
+
+/**
+ * Breadth-first search that expands a whole layer with word operations.
+ * <p>
+ * Open cells, the unvisited set and the frontier are kept as row-aligned
+ * bitsets with {@code (cols + 63) / 64} words per row. Each layer ORs the
+ * frontier shifted one column left and right with the frontier rows above
+ * and below, then masks with the unvisited open cells, so 64 cells are
+ * handled per operation. A second level of bits marks which frontier
+ * words are non-empty, so a layer only touches the words next to the
+ * frontier rather than the whole grid.
+ * <p>
+ * Neighboring cells are at most one layer apart, so each cell only needs
+ * its layer number modulo 3, kept in two more bitsets and written a word
+ * at a time. The path is recovered by walking back from the end through
+ * the neighbor one layer closer. The whole search state takes about five
+ * bits per cell, against several ints per cell for {@link BFS}. Like
+ * any breadth-first search it ignores cell costs. Layers only grow
+ * orthogonally, so it refuses grids with diagonal moves, where it would
+ * miss goals reachable only diagonally.
+ */
+public class BitParallelBFS implements Pathfinder {
+    private final GridMap grid;
+    private final int rows, cols;
+    private final int wordsPerRow;
+    private final long[] open;
+    
+    /** Open cells the current search has not reached yet */
+    private final long[] unvisited;
+    private long[] frontier;
+    private long[] next;
+    
+    /** Non-empty frontier words, one bit per word of {@link #frontier} */
+    private long[] active;
+    private long[] nextActive;
+    private final int activePerRow;
+    
+    /** Low and high bit of each visited cell's layer modulo 3 */
+    private final long[] layerLow, layerHigh;
+    private final SearchMetrics metrics = SearchMetrics.forAlgorithm("BitParallelBFS");
+    private long version = -1;
+    private SearchObserver observer;
+    
+    /**
+     * Creates a bit-parallel BFS pathfinder.
+     * 
+     * @param grid The grid to search
+     */
+    public BitParallelBFS(GridMap grid) {
+        this.grid = grid;
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.activePerRow = (wordsPerRow + 63) >>> 6;
+        int words = rows * wordsPerRow;
+        this.open = new long[words];
+        this.unvisited = new long[words];
+        this.frontier = new long[words];
+        this.next = new long[words];
+        this.layerLow = new long[words];
+        this.layerHigh = new long[words];
+        this.active = new long[rows * activePerRow];
+        this.nextActive = new long[rows * activePerRow];
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return observer;
+    }
+    
+    /**
+     * Rebuilds the open-cell bitset when the grid has changed. Only a
+     * {@link Grid} can change; other maps are read once.
+     */
+    private void refreshWalls() {
+        long current = grid instanceof Grid ? ((Grid) grid).getVersion() : 0;
+        if (current == version) return;
+        Arrays.fill(open, 0L);
+        for (int row = 0; row < rows; row++) {
+            int base = row * wordsPerRow;
+            for (int col = 0; col < cols; col++) {
+                if (!grid.isWall(row * cols + col)) {
+                    open[base + (col >>> 6)] |= 1L << col;
+                }
+            }
+        }
+        version = current;
+    }
+    
+    /**
+     * Finds path using layer-at-a-time bit-parallel BFS.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws IllegalStateException if the grid allows diagonal moves
+     * @throws InterruptedException
+     */
+    @Override
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        if (grid.getConnectivity().hasDiagonals()) {
+            throw new IllegalStateException("Bit-parallel BFS only supports four-way moves");
+        }
+        long startNanos = System.nanoTime();
+        refreshWalls();
+        System.arraycopy(open, 0, unvisited, 0, open.length);
+        Arrays.fill(layerLow, 0L);
+        Arrays.fill(layerHigh, 0L);
+        
+        int endWord = end / cols * wordsPerRow + (end % cols >>> 6);
+        long endBit = 1L << (end % cols);
+        if (start != end && (open[endWord] & endBit) == 0) {
+            // A wall end is never reached
+            return metrics.finish(null, -1, 0, 0, startNanos);
+        }
+        
+        int startRow = start / cols;
+        int startWord = start % cols >>> 6;
+        frontier[startRow * wordsPerRow + startWord] = 1L << (start % cols);
+        unvisited[startRow * wordsPerRow + startWord] &= ~(1L << (start % cols));
+        active[startRow * activePerRow + (startWord >>> 6)] = 1L << startWord;
+        int low = startRow, high = startRow;
+        int expansions = 1;
+        int peakFrontier = 1;
+        int distance = 0;
+        
+        try {
+            while ((unvisited[endWord] & endBit) != 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                
+                int code = (distance + 1) % 3;
+                int from = Math.max(low - 1, 0);
+                int to = Math.min(high + 1, rows - 1);
+                int newLow = Integer.MAX_VALUE, newHigh = -1;
+                int layer = 0;
+                for (int row = from; row <= to; row++) {
+                    int count = expandRow(row, code);
+                    if (count > 0) {
+                        newLow = Math.min(newLow, row);
+                        newHigh = row;
+                        layer += count;
+                    }
+                    // The row above is no longer read by this layer
+                    if (row > low) clearRow(row - 1);
+                }
+                clearRow(to);
+                expansions += layer;
+                peakFrontier = Math.max(peakFrontier, layer);
+                
+                long[] swap = frontier;
+                frontier = next;
+                next = swap;
+                swap = active;
+                active = nextActive;
+                nextActive = swap;
+                low = newLow;
+                high = newHigh;
+                
+                if (newHigh < 0) {
+                    return metrics.finish(null, -1, expansions, peakFrontier, startNanos);
+                }
+                distance++;
+                if (observer != null) {
+                    report(low, high, end);
+                }
+            }
+        } finally {
+            for (int row = low; row <= high; row++) {
+                clearRow(row);
+            }
+        }
+        
+        int[] path = backtrack(start, end, distance);
+        if (observer != null) {
+            observer.onPath(path);
+        }
+        return metrics.finish(path, path.length - 1, expansions, peakFrontier, startNanos);
+    }
+    
+    /**
+     * Computes the next layer for one row into the spare buffer, looking
+     * only at words next to the frontier in this row and the rows around
+     * it, and marks the new cells as visited.
+     * 
+     * @param code Layer of the new cells modulo 3
+     * @return Number of new cells in the row
+     */
+    private int expandRow(int row, int code) {
+        int base = row * wordsPerRow;
+        int activeBase = row * activePerRow;
+        int count = 0;
+        for (int a = 0; a < activePerRow; a++) {
+            // Words whose cells can be reached: active words in this row
+            // and their horizontal neighbors, and active words above and below
+            long here = active[activeBase + a];
+            long candidates = here | here << 1 | here >>> 1;
+            if (a > 0) candidates |= active[activeBase + a - 1] >>> 63;
+            if (a < activePerRow - 1) candidates |= active[activeBase + a + 1] << 63;
+            if (row > 0) candidates |= active[activeBase + a - activePerRow];
+            if (row < rows - 1) candidates |= active[activeBase + a + activePerRow];
+            
+            long reachedWords = 0;
+            for (; candidates != 0; candidates &= candidates - 1) {
+                int w = (a << 6) + Long.numberOfTrailingZeros(candidates);
+                if (w >= wordsPerRow) break;
+                int i = base + w;
+                long current = frontier[i];
+                long spread = current << 1 | current >>> 1;
+                if (w > 0) spread |= frontier[i - 1] >>> 63;
+                if (w < wordsPerRow - 1) spread |= frontier[i + 1] << 63;
+                if (row > 0) spread |= frontier[i - wordsPerRow];
+                if (row < rows - 1) spread |= frontier[i + wordsPerRow];
+                long reached = spread & unvisited[i];
+                if (reached != 0) {
+                    next[i] = reached;
+                    unvisited[i] &= ~reached;
+                    if ((code & 1) != 0) layerLow[i] |= reached;
+                    if ((code & 2) != 0) layerHigh[i] |= reached;
+                    count += Long.bitCount(reached);
+                    reachedWords |= 1L << w;
+                }
+            }
+            nextActive[activeBase + a] = reachedWords;
+        }
+        return count;
+    }
+    
+    /**
+     * Zeroes the frontier words of a row.
+     */
+    private void clearRow(int row) {
+        int base = row * wordsPerRow;
+        for (int a = row * activePerRow, end = a + activePerRow; a < end; a++) {
+            for (long words = active[a]; words != 0; words &= words - 1) {
+                frontier[base + ((a - row * activePerRow) << 6) + Long.numberOfTrailingZeros(words)] = 0L;
+            }
+            active[a] = 0L;
+        }
+    }
+    
+    /**
+     * Reports the cells of the current frontier to the observer.
+     * 
+     * @param skip Cell not reported
+     */
+    private void report(int low, int high, int skip) throws InterruptedException {
+        for (int row = low; row <= high; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                for (long bits = frontier[row * wordsPerRow + w]; bits != 0; bits &= bits - 1) {
+                    int cell = row * cols + (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (cell != skip) {
+                        observer.onVisit(cell);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Walks from the end back to the start through neighbors one layer
+     * closer to the start.
+     */
+    private int[] backtrack(int start, int end, int distance) {
+        int[] path = new int[distance + 1];
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        path[0] = start;
+        path[distance] = end;
+        int current = end;
+        for (int depth = distance - 1; depth > 0; depth--) {
+            // One of the neighbors is always a layer closer
+            int count = grid.getNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (layerCode(neighbor) == depth % 3) {
+                    current = neighbor;
+                    break;
+                }
+            }
+            path[depth] = current;
+        }
+        return path;
+    }
+    
+    /**
+     * Gets a cell's layer modulo 3, or -1 if the search did not reach it.
+     */
+    private int layerCode(int cell) {
+        int col = cell % cols;
+        int i = cell / cols * wordsPerRow + (col >>> 6);
+        long bit = 1L << col;
+        if ((open[i] & ~unvisited[i] & bit) == 0) return -1;
+        return ((layerLow[i] & bit) != 0 ? 1 : 0) | ((layerHigh[i] & bit) != 0 ? 2 : 0);
+    }
+}
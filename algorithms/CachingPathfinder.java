@@ -0,0 +1,223 @@
+package algorithms;
+
+import model.*;
+import java.util.*;
+
+/**
+ * Wraps a pathfinder with a bounded LRU cache of results keyed by the grid
+ * version plus the endpoints.
+ * <p>
+ * The cache listens to wall edits and only drops entries the edit can
+ * affect. A new wall invalidates cached paths that cross it, and queries
+ * with no path stay valid. A removed wall can only shorten a path whose
+ * cost exceeds the Manhattan detour through that cell, and can connect
+ * queries that had no path. Everything else is kept and carried forward
+ * to the new grid version. If the grid version moves without the cache
+ * seeing the edit, the whole cache is dropped. Cost edits are handled the
+ * same way, since every step costs at least 1. On eight-way grids a wall
+ * edit also affects paths passing its corners, and the detour is
+ * measured in diagonal steps.
+ */
+public class CachingPathfinder implements Pathfinder, GridListener {
+    private final Grid grid;
+    private final Pathfinder delegate;
+    private final int maxEntries;
+    private final LinkedHashMap<Long, SearchResult> entries;
+    private SearchObserver observer;
+    private long version;
+    private long hits, misses, evictions, invalidations;
+    
+    /**
+     * Creates a caching pathfinder and registers it with the grid.
+     * 
+     * @param grid The grid searched by the delegate
+     * @param delegate Pathfinder that computes uncached results
+     * @param maxEntries Maximum number of cached queries
+     */
+    public CachingPathfinder(Grid grid, Pathfinder delegate, int maxEntries) {
+        this.grid = grid;
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SearchResult> eldest) {
+                if (size() > CachingPathfinder.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.version = grid.getVersion();
+        grid.addListener(this);
+    }
+    
+    /**
+     * Returns a cached result, or runs the delegate and caches its result.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    @Override
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        long key = ((long) start << 32) | (end & 0xFFFFFFFFL);
+        long searchVersion;
+        synchronized (this) {
+            if (version != grid.getVersion()) {
+                invalidations += entries.size();
+                entries.clear();
+                version = grid.getVersion();
+            }
+            SearchResult cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                if (observer != null && cached.isFound()) {
+                    observer.onPath(cached.getPath());
+                }
+                return cached;
+            }
+            misses++;
+            searchVersion = version;
+        }
+        
+        SearchResult result = delegate.findPath(start, end);
+        
+        synchronized (this) {
+            // Drop results computed while the grid was being edited
+            if (searchVersion == version && version == grid.getVersion()) {
+                entries.put(key, result);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+        delegate.setObserver(observer);
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return observer;
+    }
+    
+    /**
+     * Gets the wrapped pathfinder.
+     */
+    public Pathfinder getDelegate() {
+        return delegate;
+    }
+    
+    /**
+     * Drops the entries a wall edit can affect.
+     */
+    @Override
+    public synchronized void wallChanged(int index, boolean wall) {
+        invalidate(index, wall, !wall);
+    }
+    
+    /**
+     * Drops the entries a cost edit can affect. A higher cost acts like a
+     * new wall, except that it cannot disconnect queries that had a path.
+     */
+    @Override
+    public synchronized void costChanged(int index, int oldCost, int newCost) {
+        invalidate(index, newCost > oldCost, false);
+    }
+    
+    /**
+     * Drops the entries an edit of one cell can affect.
+     * 
+     * @param index The edited cell
+     * @param worse Whether paths through the cell got longer
+     * @param connects Whether the edit can join cells that had no path
+     */
+    private void invalidate(int index, boolean worse, boolean connects) {
+        if (version + 1 != grid.getVersion()) {
+            // Missed an edit, nothing cached can be trusted
+            invalidations += entries.size();
+            entries.clear();
+            version = grid.getVersion();
+            return;
+        }
+        
+        Iterator<Map.Entry<Long, SearchResult>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, SearchResult> entry = iterator.next();
+            if (isAffected(entry.getKey(), entry.getValue(), index, worse, connects)) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+        version = grid.getVersion();
+    }
+    
+    private boolean isAffected(long key, SearchResult result, int index, boolean worse, boolean connects) {
+        if (!result.isFound()) {
+            return connects;
+        }
+        boolean diagonals = grid.getConnectivity().hasDiagonals();
+        if (worse) {
+            for (int cell : result.getPath()) {
+                // A wall also blocks diagonal moves past its corners
+                if (cell == index || (diagonals && grid.steps(cell, index) <= 1)) return true;
+            }
+            return false;
+        }
+        int start = (int) (key >>> 32);
+        int end = (int) key;
+        int bound = grid.steps(start, index) + grid.steps(index, end);
+        if (diagonals) {
+            // A removed wall can open a diagonal move between two of its
+            // neighbors without the path entering the cell
+            bound--;
+        }
+        return bound < result.getCost();
+    }
+    
+    /**
+     * Removes all entries and unregisters from the grid.
+     */
+    public synchronized void close() {
+        entries.clear();
+        grid.removeListener(this);
+    }
+    
+    /**
+     * Gets the number of cached queries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Gets the number of queries answered from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    /**
+     * Gets the number of queries passed to the delegate.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * Gets the number of entries dropped to stay within the size limit.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * Gets the number of entries dropped because of grid edits.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+}
@@ -0,0 +1,49 @@
+package algorithms;
+
+/**
+ * Cooperative cancellation for searches. A search is cancelled by
+ * interrupting the thread running it; per-node loops poll the interrupt
+ * flag once every {@link #CHECK_INTERVAL} expansions rather than on every
+ * node, so a cancelled search stops within a bounded amount of work.
+ */
+final class Cancellation {
+    /** Number of expansions between interrupt checks, a power of two */
+    static final int CHECK_INTERVAL = 1024;
+    
+    private Cancellation() {
+    }
+    
+    /**
+     * Throws if the current thread was interrupted and the count is at a
+     * check point.
+     * 
+     * @param count Expansions or queue pops so far
+     * @throws InterruptedException if the search was cancelled
+     */
+    static void check(long count) throws InterruptedException {
+        if ((count & (CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+    }
+    
+    /**
+     * Waits for a thread to finish even if the current thread is
+     * interrupted. An interrupt is kept for the caller to see.
+     * 
+     * @param thread Thread to wait for
+     */
+    static void join(Thread thread) {
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package algorithms;
+
+import model.*;
+import java.util.Arrays;
+
+/**
+ * Labels the connected components of a grid's open cells, so queries
+ * between different components can be rejected without searching.
+ * <p>
+ * Components are kept in a union-find forest. Removing a wall merges the
+ * opened cell with its neighbors' components. Adding a wall can split a
+ * component, so the index first checks whether the cells around the new
+ * wall are still connected to each other within its 3x3 block; if they
+ * are, nothing split. Otherwise the labels are rebuilt from scratch on the
+ * next query. A rebuild flattens the forest, so lookups after it take one
+ * step.
+ * <p>
+ * Components follow the grid's moves, so diagonal moves can join cells
+ * that are separate with orthogonal moves only.
+ */
+public class ComponentIndex implements GridListener {
+    private final Grid grid;
+    
+    /** Union-find node of each open cell */
+    private final int[] node;
+    private int[] parent;
+    private byte[] rank;
+    private int nodeCount;
+    
+    private boolean dirty = true;
+    private long version;
+    private long rebuilds;
+    private final int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+    private final int[] block = new int[GridMap.MAX_NEIGHBORS];
+    private final int[] queue = new int[GridMap.MAX_NEIGHBORS];
+    
+    /**
+     * Creates a component index and registers it for wall changes.
+     * 
+     * @param grid The grid to label
+     */
+    public ComponentIndex(Grid grid) {
+        this.grid = grid;
+        this.node = new int[grid.size()];
+        this.parent = new int[grid.size()];
+        this.rank = new byte[grid.size()];
+        grid.addListener(this);
+    }
+    
+    /**
+     * Checks whether a path can exist between two cells.
+     * 
+     * @param a First cell index
+     * @param b Second cell index
+     * @return true if both cells are open and in the same component
+     */
+    public synchronized boolean isConnected(int a, int b) {
+        refresh();
+        if (grid.isWall(a) || grid.isWall(b)) return false;
+        return find(node[a]) == find(node[b]);
+    }
+    
+    /**
+     * Gets a label shared by every cell of a component. Labels change when
+     * the grid is edited.
+     * 
+     * @param index Cell index
+     * @return The component label, or -1 for a wall
+     */
+    public synchronized int getComponent(int index) {
+        refresh();
+        return grid.isWall(index) ? -1 : find(node[index]);
+    }
+    
+    /**
+     * Gets the number of times the labels were rebuilt from scratch.
+     */
+    public synchronized long getRebuilds() {
+        return rebuilds;
+    }
+    
+    /**
+     * Unregisters from the grid.
+     */
+    public void close() {
+        grid.removeListener(this);
+    }
+    
+    /**
+     * Merges an opened cell into its neighbors' components, or checks
+     * whether a new wall may have split its component.
+     */
+    @Override
+    public synchronized void wallChanged(int index, boolean wall) {
+        if (dirty) return;
+        if (version + 1 != grid.getVersion()) {
+            // Missed an edit, start over on the next query
+            dirty = true;
+            return;
+        }
+        version = grid.getVersion();
+        if (wall) {
+            if (splits(index)) {
+                dirty = true;
+            }
+        } else {
+            open(index);
+        }
+    }
+    
+    @Override
+    public synchronized void costChanged(int index, int oldCost, int newCost) {
+        if (version + 1 == grid.getVersion()) {
+            version = grid.getVersion();
+        }
+    }
+    
+    private void refresh() {
+        if (dirty || version != grid.getVersion()) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Labels every open cell from scratch.
+     */
+    private void rebuild() {
+        int size = grid.size();
+        if (parent.length > size) {
+            parent = new int[size];
+            rank = new byte[size];
+        }
+        for (int i = 0; i < size; i++) {
+            node[i] = i;
+            parent[i] = i;
+        }
+        Arrays.fill(rank, (byte) 0);
+        nodeCount = size;
+        
+        for (int i = 0; i < size; i++) {
+            if (grid.isWall(i)) continue;
+            int count = grid.getNeighbors(i, neighbors);
+            for (int n = 0; n < count; n++) {
+                if (neighbors[n] > i) {
+                    union(i, neighbors[n]);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            parent[i] = find(i);
+        }
+        
+        dirty = false;
+        version = grid.getVersion();
+        rebuilds++;
+    }
+    
+    /**
+     * Gives a newly opened cell a fresh node and joins it to its neighbors.
+     * The cell's old node may still be linked into the component it had
+     * before it was walled, so it cannot be reused.
+     */
+    private void open(int index) {
+        if (nodeCount == parent.length) {
+            if (nodeCount >= 2 * grid.size()) {
+                // Too many abandoned nodes, compact on the next rebuild
+                dirty = true;
+                return;
+            }
+            int capacity = Math.min(2 * grid.size(), nodeCount + Math.max(16, nodeCount / 4));
+            parent = Arrays.copyOf(parent, capacity);
+            rank = Arrays.copyOf(rank, capacity);
+        }
+        int id = nodeCount++;
+        parent[id] = id;
+        rank[id] = 0;
+        node[index] = id;
+        
+        int count = grid.getNeighbors(index, neighbors);
+        for (int n = 0; n < count; n++) {
+            union(id, node[neighbors[n]]);
+        }
+    }
+    
+    /**
+     * Checks whether a new wall may have split its component. Every move
+     * the wall removed either entered the wall or passed its corner, so
+     * each ends at a cell around it. If those cells are still connected
+     * within the 3x3 block, every old path can detour around the wall.
+     */
+    private boolean splits(int index) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        int row = index / cols;
+        int col = index - row * cols;
+        boolean diagonals = grid.getConnectivity().hasDiagonals();
+        
+        int blockSize = 0;
+        int affected = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                int cell = r * cols + c;
+                if (cell == index || grid.isWall(cell)) continue;
+                // Orthogonal neighbors first, so they lead the affected cells
+                boolean orthogonal = r == row || c == col;
+                if (orthogonal || diagonals) {
+                    System.arraycopy(block, affected, block, affected + 1, blockSize - affected);
+                    block[affected++] = cell;
+                } else {
+                    block[blockSize] = cell;
+                }
+                blockSize++;
+            }
+        }
+        if (affected <= 1) return false;
+        
+        // Search within the block from the first affected cell
+        long reached = 1;
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int current = block[queue[head++]];
+            int count = grid.getNeighbors(current, neighbors);
+            for (int n = 0; n < count; n++) {
+                for (int b = 0; b < blockSize; b++) {
+                    if (block[b] == neighbors[n] && (reached & (1L << b)) == 0) {
+                        reached |= 1L << b;
+                        queue[tail++] = b;
+                    }
+                }
+            }
+        }
+        long needed = (1L << affected) - 1;
+        return (reached & needed) != needed;
+    }
+    
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+    
+    private void union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) return;
+        if (rank[a] < rank[b]) {
+            parent[a] = b;
+        } else if (rank[a] > rank[b]) {
+            parent[b] = a;
+        } else {
+            parent[b] = a;
+            rank[a]++;
+        }
+    }
+}
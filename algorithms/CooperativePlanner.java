@@ -0,0 +1,786 @@
+package algorithms;
+
+import model.*;
+import java.util.*;
+
+/**
+ * Plans collision-free moves for many agents sharing a grid with
+ * cooperative A*: agents are planned one at a time in priority order, each
+ * with a space-time A* that avoids the cells and time steps already
+ * reserved by the agents before it.
+ * <p>
+ * Every move, including waiting in place, takes one time step; terrain
+ * costs are ignored. Two agents may not be in the same cell at the same
+ * time, or swap cells in one step.
+ * <p>
+ * {@link #step()} runs the windowed variant (WHCA*): each replan searches
+ * only the next {@code window} steps of every agent and guides the rest of
+ * the way with the grid's step heuristic, so a tick costs a bounded search
+ * per agent however far the goals are. When a window ends no closer to
+ * the goal by that heuristic, as it does for an agent behind a wall longer
+ * than the window, the agent is planned again, then and from then on, with
+ * the true distance around walls. Those distances come from a
+ * {@link ReverseResumableAStar} per goal, shared by the agents with that
+ * goal and searched only as far as they need, and are dropped whenever a
+ * {@link Grid} being planned on is edited. {@link #planAll(int)} instead
+ * plans complete paths for the whole batch, searching safe intervals
+ * (SIPP) rather than single time steps.
+ * <p>
+ * Not thread-safe.
+ */
+public class CooperativePlanner {
+    private final GridMap map;
+    private final int window;
+    private final int interval;
+    private final ReservationTable table;
+    private final int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+    
+    private int agentCount;
+    private int[] position = new int[16];
+    private int[] goal = new int[16];
+    private int[][] plan = new int[16][];
+    
+    /** Distances to each goal, shared by the agents with that goal */
+    private final Map<Integer, ReverseResumableAStar> goalDistances = new HashMap<>();
+    private long version;
+    
+    /** True distances guiding each agent, or null while steps do */
+    private ReverseResumableAStar[] guide = new ReverseResumableAStar[16];
+    
+    private int time;
+    private int planTime;
+    
+    /** First time step not covered by every agent's plan */
+    private int planEnd;
+    private long expansions;
+    private long replans;
+    
+    // Search nodes
+    private int nodeCount;
+    private int[] nodeCell = new int[1024];
+    private int[] nodeDepth = new int[1024];
+    private int[] nodeParent = new int[1024];
+    private int[] nodeDistance = new int[1024];
+    private boolean[] nodeExpanded = new boolean[1024];
+    
+    // Binary heap of (f, distance, -depth) keys and the nodes they belong to
+    private long[] heapKey = new long[1024];
+    private int[] heapNode = new int[1024];
+    private int heapSize;
+    
+    // States reached by the current search, keyed by time and cell, with
+    // each key's stamp and node after it; slots stamped by earlier searches
+    // count as empty
+    private long[] states = new long[4096];
+    private int stamp;
+    
+    /** Parent of a node superseded by a shorter way to its state */
+    private static final int STALE = -2;
+    
+    /** Region of each open cell not taken by a parked agent, or -1 */
+    private int[] region;
+    private int[] regionQueue;
+    private boolean regionsStale;
+    
+    /** Reserved time steps of each cell in order, while planning all paths */
+    private int[][] reservedTimes;
+    private int[] reservedCount;
+    private final IntList reservedCells = new IntList(64);
+    
+    /**
+     * Creates a windowed planner that replans every step.
+     * 
+     * @param map The grid agents move on
+     * @param window Number of steps each replan searches ahead
+     */
+    public CooperativePlanner(GridMap map, int window) {
+        this(map, window, 1);
+    }
+    
+    /**
+     * Creates a windowed planner.
+     * 
+     * @param map The grid agents move on
+     * @param window Number of steps each replan searches ahead
+     * @param interval Number of steps between replans, at most the window
+     */
+    public CooperativePlanner(GridMap map, int window, int interval) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        if (interval < 1 || interval > window) {
+            throw new IllegalArgumentException("Interval must be between 1 and the window: " + interval);
+        }
+        this.map = map;
+        this.window = window;
+        this.interval = interval;
+        this.table = new ReservationTable(map.size());
+    }
+    
+    /**
+     * Adds an agent with a lower priority than every agent added before.
+     * 
+     * @param start Start cell index
+     * @param goal Goal cell index
+     * @return The agent id
+     */
+    public int addAgent(int start, int goal) {
+        if (map.isWall(start) || map.isWall(goal)) {
+            throw new IllegalArgumentException("Agent endpoints must be open: " + start + ", " + goal);
+        }
+        for (int a = 0; a < agentCount; a++) {
+            if (position[a] == start) {
+                throw new IllegalArgumentException("Cell already holds agent " + a + ": " + start);
+            }
+        }
+        if (agentCount == position.length) {
+            position = Arrays.copyOf(position, agentCount * 2);
+            this.goal = Arrays.copyOf(this.goal, agentCount * 2);
+            plan = Arrays.copyOf(plan, agentCount * 2);
+            guide = Arrays.copyOf(guide, agentCount * 2);
+        }
+        position[agentCount] = start;
+        this.goal[agentCount] = goal;
+        plan[agentCount] = new int[window + 1];
+        // Plans made before this agent existed did not avoid it
+        planEnd = time;
+        return agentCount++;
+    }
+    
+    /**
+     * Gets the number of agents.
+     */
+    public int getAgentCount() {
+        return agentCount;
+    }
+    
+    /**
+     * Gets the cell an agent is in.
+     */
+    public int getPosition(int agent) {
+        return position[agent];
+    }
+    
+    /**
+     * Gets an agent's goal cell.
+     */
+    public int getGoal(int agent) {
+        return goal[agent];
+    }
+    
+    /**
+     * Checks whether an agent is at its goal.
+     */
+    public boolean isArrived(int agent) {
+        return position[agent] == goal[agent];
+    }
+    
+    /**
+     * Checks whether every agent is at its goal.
+     */
+    public boolean allArrived() {
+        for (int a = 0; a < agentCount; a++) {
+            if (position[a] != goal[a]) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Gets the number of steps taken so far.
+     */
+    public int getTime() {
+        return time;
+    }
+    
+    /**
+     * Gets the number of space-time nodes expanded by every search so far.
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+    
+    /**
+     * Gets the number of times every agent was replanned.
+     */
+    public long getReplans() {
+        return replans;
+    }
+    
+    /**
+     * Moves every agent one step along its plan, replanning first when the
+     * interval has passed or some agent's plan ran out.
+     */
+    public void step() {
+        if (time - planTime >= interval || time + 1 >= planEnd) {
+            replan();
+        }
+        time++;
+        for (int a = 0; a < agentCount; a++) {
+            position[a] = plan[a][time - planTime];
+        }
+    }
+    
+    /**
+     * Plans the next window of every agent in priority order from the
+     * current positions.
+     * <p>
+     * An agent boxed in by the plans before it has nowhere to go, not even
+     * its own cell. If that happens the window is planned again with every
+     * agent's next step held in place, so any agent can at least wait; its
+     * plan then covers one step and everything is replanned after it.
+     * Holding is not the default because it keeps agents from following
+     * each other into a cell, which can stall a queue behind an agent that
+     * only moves aside when asked to.
+     */
+    public void replan() {
+        refreshDistances();
+        if (!replan(false)) {
+            replan(true);
+        }
+        replans++;
+    }
+    
+    private boolean replan(boolean hold) {
+        table.clear();
+        // The cells at the start let searches detect swaps with agents not
+        // planned yet
+        for (int a = 0; a < agentCount; a++) {
+            table.reserve(position[a], time, a);
+            if (hold) {
+                table.reserve(position[a], time + 1, a);
+            }
+        }
+        planTime = time;
+        planEnd = time + window + 1;
+        for (int a = 0; a < agentCount; a++) {
+            int end = search(a, guide[a], position[a], time, time + window);
+            if (end != -1 && guide[a] == null && nodeCell[end] != goal[a]
+                    && nodeDistance[end] >= map.steps(position[a], goal[a])) {
+                // Steps led nowhere, likely into a wall, so follow true distances
+                guide[a] = guideTo(goal[a], position[a]);
+                end = search(a, guide[a], position[a], time, time + window);
+            }
+            int[] path = plan[a];
+            int reserved = window + 1;
+            if (end == -1) {
+                if (!hold) return false;
+                Arrays.fill(path, position[a]);
+                reserved = 2;
+                planEnd = Math.min(planEnd, time + 2);
+            } else {
+                // Short plans ended at the goal, which is free to stay in
+                int length = tracePath(end, path);
+                Arrays.fill(path, length, window + 1, path[length - 1]);
+            }
+            for (int d = 0; d < reserved; d++) {
+                table.reserve(path[d], time + d, a);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Plans complete paths for every agent in priority order from the
+     * current positions. Each agent stays at its goal once it arrives, and
+     * later agents route around it, never passing a cell where one has
+     * parked. Agents are not moved. Every search is guided by the true
+     * distances to the goal around the walls and parked agents, since a
+     * complete path may lead far from the straight line.
+     * <p>
+     * A search state is a cell and a stretch of time no other agent holds
+     * it, so waiting takes no states of its own, and past the last time
+     * step reserved so far there is one state per cell. A goal cut off by
+     * parked agents is detected from regions of free cells before
+     * searching at all; the regions are labeled again only when a parked
+     * agent may have split one.
+     * 
+     * @param horizon Largest number of steps a path may take
+     * @return The cells of each agent's path, one per step, or null for
+     *         agents that could not reach their goal within the horizon;
+     *         later agents do not avoid those
+     * @throws InterruptedException if the planning thread was interrupted
+     */
+    public int[][] planAll(int horizon) throws InterruptedException {
+        refreshDistances();
+        table.clear();
+        clearReserved();
+        regionsStale = true;
+        int[][] paths = new int[agentCount][];
+        for (int a = 0; a < agentCount; a++) {
+            int busy = table.getLatest(goal[a]);
+            if (busy == Integer.MAX_VALUE || busy >= horizon || !canReach(position[a], goal[a])) continue;
+            ReverseResumableAStar distances = new ReverseResumableAStar(map, goal[a], position[a], table);
+            int end = searchIntervals(a, distances, position[a], horizon, busy + 1);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            if (end == -1) continue;
+            int[] path = new int[nodeDepth[end] + 1];
+            tracePath(end, path);
+            for (int t = 0; t < path.length; t++) {
+                table.reserve(path[t], t, a);
+                addReserved(path[t], t);
+            }
+            table.park(goal[a], path.length - 1, a);
+            parked(goal[a]);
+            paths[a] = path;
+        }
+        return paths;
+    }
+    
+    /**
+     * Gets the shared distances to a goal, starting them if no agent has
+     * the goal yet.
+     */
+    private ReverseResumableAStar guideTo(int goal, int start) {
+        return goalDistances.computeIfAbsent(goal, cell -> new ReverseResumableAStar(map, cell, start));
+    }
+    
+    /**
+     * Drops the goal distances once the grid has been edited. Agents that
+     * followed them get them again when steps lead nowhere.
+     */
+    private void refreshDistances() {
+        long current = map instanceof Grid ? ((Grid) map).getVersion() : 0;
+        if (current == version) return;
+        version = current;
+        goalDistances.clear();
+        Arrays.fill(guide, null);
+    }
+    
+    /**
+     * Space-time A* over the next window of one agent. It ends at the goal
+     * once the agent can stay there until the limit, or at any cell reached
+     * at the limit.
+     * 
+     * @param guide True distances to the goal, or null to follow the
+     *        grid's step heuristic, as happens too if the goal cannot be
+     *        reached at all
+     * @return The final node, or -1 if there is none
+     */
+    private int search(int agent, ReverseResumableAStar guide, int start, int startTime, int limit) {
+        int target = goal[agent];
+        int h = guide == null ? -1 : guide.distance(start);
+        if (h < 0) {
+            guide = null;
+            h = map.steps(start, target);
+        }
+        int depthLimit = limit - startTime;
+        clearSearch();
+        push(visit(start, 0, 0, -1, h), h);
+        
+        while (heapSize > 0) {
+            int node = pop();
+            nodeExpanded[node] = true;
+            expansions++;
+            
+            int cell = nodeCell[node];
+            int depth = nodeDepth[node];
+            int t = startTime + depth;
+            if (cell == target && canStay(cell, t, limit, agent) || depth == depthLimit) {
+                return node;
+            }
+            
+            int count = map.getNeighbors(cell, neighbors);
+            for (int n = -1; n < count; n++) {
+                int next = n == -1 ? cell : neighbors[n];
+                if (!table.canMove(cell, next, t, agent)) continue;
+                int left = guide == null ? map.steps(next, target) : guide.distance(cell, nodeDistance[node], next);
+                int child = visit(next, depth + 1, depth + 1, node, left);
+                if (child != -1) {
+                    push(child, depth + 1 + left);
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * A* over safe intervals for one agent's complete path. A state is a
+     * cell and a stretch of time steps no other agent holds it, reached as
+     * early as possible; from there the agent may move on at any time in
+     * the stretch, so each neighbor is reached at the first step it is free
+     * in each of its own stretches. The search does not pass parked agents
+     * and ends at the goal once the agent can stay there for good.
+     * 
+     * @param guide True distances to the goal around the parked agents
+     * @param limit Largest number of steps the path may take
+     * @param release First time step no other agent holds the goal
+     * @return The final node, whose depth is its time step, or -1 if there
+     *         is none
+     */
+    private int searchIntervals(int agent, ReverseResumableAStar guide, int start, int limit, int release) {
+        int target = goal[agent];
+        int h = guide.distance(start);
+        if (h < 0 || h > limit) return -1;
+        clearSearch();
+        push(visit(start, freeUntil(start, 0), 0, -1, h), estimate(h, 0, release));
+        
+        while (heapSize > 0) {
+            int node = pop();
+            if (nodeParent[node] == STALE) continue;
+            nodeExpanded[node] = true;
+            expansions++;
+            if ((expansions & (Cancellation.CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+                return -1;
+            }
+            
+            int cell = nodeCell[node];
+            int t = nodeDepth[node];
+            int until = freeUntil(cell, t);
+            if (cell == target && until == Integer.MAX_VALUE) {
+                return node;
+            }
+            // Latest time step a neighbor can be reached at
+            int latest = Math.min(until, limit - 1) + 1;
+            
+            int count = map.getNeighbors(cell, neighbors);
+            for (int n = 0; n < count; n++) {
+                int next = neighbors[n];
+                if (isParked(next)) continue;
+                int left = guide.distance(cell, nodeDistance[node], next);
+                int arrive = freeFrom(next, t + 1);
+                while (arrive <= latest) {
+                    int end = freeUntil(next, arrive);
+                    // Only an agent taking the cell right after could swap
+                    if (arrive <= until || table.canMove(cell, next, arrive - 1, agent)) {
+                        int child = visit(next, end, arrive, node, left);
+                        if (child != -1) {
+                            push(child, arrive + estimate(left, arrive, release));
+                        }
+                    }
+                    if (end >= latest) break;
+                    arrive = freeFrom(next, end + 1);
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Gets a lower bound on the steps left to the goal: the distance, or
+     * the wait until the goal is released if that is longer.
+     */
+    private static int estimate(int distance, int time, int release) {
+        return Math.max(distance, release - time);
+    }
+    
+    /**
+     * Checks that no other agent reserved a cell over a range of time steps.
+     */
+    private boolean canStay(int cell, int from, int until, int agent) {
+        for (int t = from; t <= until; t++) {
+            if (!table.isFree(cell, t, agent)) return false;
+        }
+        return true;
+    }
+    
+    private void clearSearch() {
+        nodeCount = 0;
+        heapSize = 0;
+        if (++stamp == 0) {
+            Arrays.fill(states, 0);
+            stamp = 1;
+        }
+    }
+    
+    /**
+     * Adds a node for a state unless it was already reached as early. A
+     * window's states are cells at a time step, each reached first by its
+     * cheapest node. A safe interval's state is reached again when a later
+     * node gets there sooner; the earlier node is then skipped if still
+     * queued, or keeps the children it already has.
+     * 
+     * @param time Time step, or last step of the safe interval, that
+     *        identifies the state together with the cell
+     * @return The new node, or -1 if the state was already reached
+     */
+    private int visit(int cell, int time, int depth, int parent, int distance) {
+        if (4 * (nodeCount + 1) > states.length) {
+            growStates();
+        }
+        long key = ((long) time << 32) | cell;
+        int mask = states.length - 2;
+        int slot = (ReservationTable.hash(key) << 1) & mask;
+        while ((int) (states[slot + 1] >>> 32) == stamp) {
+            if (states[slot] == key) {
+                int existing = (int) states[slot + 1];
+                if (nodeDepth[existing] <= depth) return -1;
+                if (!nodeExpanded[existing]) {
+                    nodeParent[existing] = STALE;
+                }
+                break;
+            }
+            slot = (slot + 2) & mask;
+        }
+        if (nodeCount == nodeCell.length) {
+            int capacity = nodeCount * 2;
+            nodeCell = Arrays.copyOf(nodeCell, capacity);
+            nodeDepth = Arrays.copyOf(nodeDepth, capacity);
+            nodeParent = Arrays.copyOf(nodeParent, capacity);
+            nodeDistance = Arrays.copyOf(nodeDistance, capacity);
+            nodeExpanded = Arrays.copyOf(nodeExpanded, capacity);
+        }
+        int node = nodeCount++;
+        nodeCell[node] = cell;
+        nodeDepth[node] = depth;
+        nodeParent[node] = parent;
+        nodeDistance[node] = distance;
+        nodeExpanded[node] = false;
+        states[slot] = key;
+        states[slot + 1] = ((long) stamp << 32) | node;
+        return node;
+    }
+    
+    private void growStates() {
+        long[] old = states;
+        states = new long[old.length * 2];
+        int mask = states.length - 2;
+        for (int i = 0; i < old.length; i += 2) {
+            if ((int) (old[i + 1] >>> 32) != stamp) continue;
+            int slot = (ReservationTable.hash(old[i]) << 1) & mask;
+            while ((int) (states[slot + 1] >>> 32) == stamp) {
+                slot = (slot + 2) & mask;
+            }
+            states[slot] = old[i];
+            states[slot + 1] = old[i + 1];
+        }
+    }
+    
+    /**
+     * Queues a node by its estimated path length, then nodes nearer the
+     * goal and deeper nodes first among equals. Nearer is the same as deeper
+     * until the estimate waits for the goal's release; then it keeps the
+     * search from waiting everywhere else first.
+     */
+    private void push(int node, int f) {
+        if (heapSize == heapKey.length) {
+            heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+            heapNode = Arrays.copyOf(heapNode, heapSize * 2);
+        }
+        long key = ((long) f << 32) | ((long) Math.min(nodeDistance[node], 0xFFFF) << 16)
+                | (0xFFFF - Math.min(nodeDepth[node], 0xFFFF));
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKey[parent] <= key) break;
+            heapKey[i] = heapKey[parent];
+            heapNode[i] = heapNode[parent];
+            i = parent;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+    }
+    
+    private int pop() {
+        int top = heapNode[0];
+        long key = heapKey[--heapSize];
+        int node = heapNode[heapSize];
+        int i = 0;
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) {
+                child++;
+            }
+            if (key <= heapKey[child]) break;
+            heapKey[i] = heapKey[child];
+            heapNode[i] = heapNode[child];
+            i = child;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+        return top;
+    }
+    
+    /**
+     * Writes the cells of a node's path, one per time step, waiting in each
+     * cell until the time of the next node.
+     * 
+     * @return The number of cells
+     */
+    private int tracePath(int node, int[] path) {
+        int next = nodeDepth[node] + 1;
+        for (int n = node; n != -1; n = nodeParent[n]) {
+            Arrays.fill(path, nodeDepth[n], next, nodeCell[n]);
+            next = nodeDepth[n];
+        }
+        return nodeDepth[node] + 1;
+    }
+    
+    /**
+     * Gets the first time step from a given one at which no agent holds a
+     * cell, or {@link Integer#MAX_VALUE} if an agent parks there first.
+     */
+    private int freeFrom(int cell, int time) {
+        int[] times = reservedTimes[cell];
+        int count = reservedCount[cell];
+        for (int i = indexOf(times, count, time); i < count && times[i] == time; i++) {
+            time++;
+        }
+        return time < table.getParkTime(cell) ? time : Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Gets the last time step of the safe interval holding a free time step
+     * of a cell, or {@link Integer#MAX_VALUE} if it never ends.
+     */
+    private int freeUntil(int cell, int time) {
+        int count = reservedCount[cell];
+        int i = indexOf(reservedTimes[cell], count, time);
+        int until = i < count ? reservedTimes[cell][i] - 1 : Integer.MAX_VALUE;
+        int park = table.getParkTime(cell);
+        return park == Integer.MAX_VALUE ? until : Math.min(until, park - 1);
+    }
+    
+    /**
+     * Finds the first of a cell's reserved time steps not before a given one.
+     */
+    private static int indexOf(int[] times, int count, int time) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void addReserved(int cell, int time) {
+        int count = reservedCount[cell];
+        int[] times = reservedTimes[cell];
+        if (times == null) {
+            times = reservedTimes[cell] = new int[4];
+        } else if (count == times.length) {
+            times = reservedTimes[cell] = Arrays.copyOf(times, count * 2);
+        }
+        if (count == 0) {
+            reservedCells.add(cell);
+        }
+        int i = indexOf(times, count, time);
+        System.arraycopy(times, i, times, i + 1, count - i);
+        times[i] = time;
+        reservedCount[cell] = count + 1;
+    }
+    
+    private void clearReserved() {
+        if (reservedTimes == null) {
+            reservedTimes = new int[map.size()][];
+            reservedCount = new int[map.size()];
+        }
+        for (int i = 0; i < reservedCells.size; i++) {
+            reservedCount[reservedCells.items[i]] = 0;
+        }
+        reservedCells.clear();
+    }
+    
+    /**
+     * Checks whether an agent can still get from a cell to its goal past
+     * the parked agents, labeling the regions again first if needed. An
+     * agent parked on the start cell arrives there later, so the start
+     * counts through its neighbors.
+     */
+    private boolean canReach(int start, int target) {
+        if (regionsStale) {
+            labelRegions();
+        }
+        int want = region[target];
+        if (region[start] == want) return true;
+        if (region[start] != -1) return false;
+        int count = map.getNeighbors(start, neighbors);
+        for (int i = 0; i < count; i++) {
+            if (region[neighbors[i]] == want) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Labels the regions of open cells connected without passing a parked
+     * agent.
+     */
+    private void labelRegions() {
+        int size = map.size();
+        if (region == null) {
+            region = new int[size];
+            regionQueue = new int[size];
+        }
+        Arrays.fill(region, -1);
+        int label = 0;
+        for (int seed = 0; seed < size; seed++) {
+            if (region[seed] != -1 || map.isWall(seed) || isParked(seed)) continue;
+            int head = 0, tail = 0;
+            region[seed] = label;
+            regionQueue[tail++] = seed;
+            while (head < tail) {
+                int count = map.getNeighbors(regionQueue[head++], neighbors);
+                for (int i = 0; i < count; i++) {
+                    int next = neighbors[i];
+                    if (region[next] == -1 && !isParked(next)) {
+                        region[next] = label;
+                        regionQueue[tail++] = next;
+                    }
+                }
+            }
+            label++;
+        }
+        regionsStale = false;
+    }
+    
+    /**
+     * Takes a newly parked cell out of its region. The region can only
+     * split if the cell's free neighbors are not connected around it
+     * within its 3x3 block; then the regions are labeled again before the
+     * next check.
+     */
+    private void parked(int cell) {
+        if (regionsStale) return;
+        region[cell] = -1;
+        int cols = map.getCols();
+        int row = cell / cols;
+        int col = cell % cols;
+        int[] around = new int[GridMap.MAX_NEIGHBORS];
+        int[] reached = new int[GridMap.MAX_NEIGHBORS];
+        int free = 0;
+        int count = map.getNeighbors(cell, around);
+        for (int i = 0; i < count; i++) {
+            if (!isParked(around[i])) {
+                around[free++] = around[i];
+            }
+        }
+        if (free < 2) return;
+        
+        int[] next = new int[GridMap.MAX_NEIGHBORS];
+        int head = 0, tail = 0;
+        reached[tail++] = around[0];
+        while (head < tail) {
+            int n = map.getNeighbors(reached[head++], next);
+            for (int i = 0; i < n; i++) {
+                int other = next[i];
+                if (other == cell || Math.abs(other / cols - row) > 1 || Math.abs(other % cols - col) > 1
+                        || isParked(other) || contains(reached, tail, other)) continue;
+                reached[tail++] = other;
+            }
+        }
+        for (int i = 1; i < free; i++) {
+            if (!contains(reached, tail, around[i])) {
+                regionsStale = true;
+                return;
+            }
+        }
+    }
+    
+    private boolean isParked(int cell) {
+        return table.getLatest(cell) == Integer.MAX_VALUE;
+    }
+    
+    private static boolean contains(int[] items, int count, int item) {
+        for (int i = 0; i < count; i++) {
+            if (items[i] == item) return true;
+        }
+        return false;
+    }
+}
@@ -1,85 +1,68 @@
 package algorithms;
 
 import model.*;
-import ui.*;
-import java.util.*;
 
 /**
- * Depth-First Search pathfinding algorithm.
+ * Depth-First Search pathfinding algorithm. Ignores cell costs.
  */
-public class DFS implements Pathfinder {
-    private Grid grid;
-    private VisualizerPanel panel;
+public class DFS extends AbstractPathfinder {
     
     /**
      * Creates a DFS pathfinder.
      * 
      * @param grid The grid to search
-     * @param panel The visualization panel
      */
-    public DFS(Grid grid, VisualizerPanel panel) {
-        this.grid = grid;
-        this.panel = panel;
+    public DFS(GridMap grid) {
+        super(grid);
     }
     
     /**
      * Finds path using DFS algorithm.
      * 
-     * @return true if path found, false otherwise
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
      * @throws InterruptedException
      */
-    public boolean findPath() throws InterruptedException {
-        grid.clearPath();
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        begin();
         
-        Stack<Cell> stack = new Stack<>();
-        Set<Cell> visited = new HashSet<>();
-        Cell start = grid.getStartCell();
-        Cell end = grid.getEndCell();
+        int[] stack = state.queue();
+        int top = 0;
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        int expansions = 0;
         
-        stack.push(start);
-        visited.add(start);
+        stack[top++] = start;
+        state.reach(start, 0, SearchState.NONE);
         
-        while (!stack.isEmpty()) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
-            }
+        while (top > 0) {
+            Cancellation.check(expansions);
             
-            Cell current = stack.pop();
+            int current = stack[--top];
+            pops++;
+            expansions++;
             
             if (current == end) {
-                reconstructPath(current);
-                return true;
+                return found(current, expansions);
             }
             
-            if (current != start && current != end) {
-                current.type = Cell.CellType.VISITED;
-                panel.repaint();
-                Thread.sleep(10);
+            if (current != start) {
+                visit(current);
             }
             
-            for (Cell neighbor : grid.getNeighbors(current)) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    neighbor.parent = current;
-                    stack.push(neighbor);
+            int count = grid.getNeighbors(current, neighbors);
+            generated += count;
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (!state.isReached(neighbor)) {
+                    state.reach(neighbor, 0, current);
+                    stack[top++] = neighbor;
+                    push(neighbor);
                 }
             }
+            frontier(top);
         }
         
-        return false;
-    }
-    
-    /**
-     * Reconstructs path by following parent pointers.
-     */
-    private void reconstructPath(Cell current) {
-        while (current != null && current != grid.getStartCell()) {
-            if (current != grid.getEndCell()) {
-                current.type = Cell.CellType.PATH;
-            }
-            current = current.parent;
-        }
-        panel.repaint();
+        return notFound(expansions);
     }
 }
-
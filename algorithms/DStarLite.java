@@ -0,0 +1,292 @@
+package algorithms;
+
+import model.*;
+import java.util.Arrays;
+
+/**
+ * D* Lite incremental planner.
+ * <p>
+ * Searches backward from the end and keeps its g and rhs values between
+ * calls. Wall and cost edits reported by the grid are queued. The next call only
+ * re-evaluates the edited cells and their neighbors, then repairs the
+ * affected region instead of searching from scratch. A moving start is
+ * handled with the key modifier {@code km}; a new end or connectivity
+ * starts over.
+ */
+public class DStarLite implements Pathfinder, GridListener {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    
+    private final Grid grid;
+    private final int[] g;
+    private final int[] rhs;
+    private final IndexedHeap open;
+    private final int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+    private final int[] successors = new int[GridMap.MAX_NEIGHBORS];
+    private SearchObserver observer;
+    private final SearchMetrics metrics = SearchMetrics.forAlgorithm("DStarLite");
+    
+    /** Largest open list size during the last repair */
+    private int peakFrontier;
+    
+    private int[] changed = new int[16];
+    private int changedCount;
+    
+    private int start = -1;
+    private int goal = -1;
+    private int km;
+    private Connectivity connectivity;
+    
+    /**
+     * Creates a D* Lite planner and registers it for wall and cost changes.
+     * 
+     * @param grid The grid to search
+     */
+    public DStarLite(Grid grid) {
+        this.grid = grid;
+        this.g = new int[grid.size()];
+        this.rhs = new int[grid.size()];
+        this.open = new IndexedHeap(grid.size());
+        grid.addListener(this);
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return observer;
+    }
+    
+    /**
+     * Queues an edited cell for the next replan.
+     */
+    @Override
+    public void wallChanged(int index, boolean wall) {
+        queue(index);
+    }
+    
+    /**
+     * Queues a cell whose cost changed for the next replan.
+     */
+    @Override
+    public void costChanged(int index, int oldCost, int newCost) {
+        queue(index);
+    }
+    
+    private synchronized void queue(int index) {
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changedCount * 2);
+        }
+        changed[changedCount++] = index;
+    }
+    
+    /**
+     * Finds path, reusing the previous solution when the end is unchanged.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    @Override
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        int[] edits;
+        int editCount;
+        synchronized (this) {
+            edits = changed;
+            editCount = changedCount;
+            changed = new int[16];
+            changedCount = 0;
+        }
+        
+        if (end != goal || connectivity != grid.getConnectivity()) {
+            initialize(start, end);
+        } else {
+            km += heuristic(this.start, start);
+            this.start = start;
+            for (int i = 0; i < editCount; i++) {
+                updateAround(edits[i]);
+            }
+        }
+        
+        int expansions = computeShortestPath();
+        // The start may be left overconsistent, so its rhs holds the distance
+        int[] path = rhs[start] == INFINITY ? null : extractPath();
+        if (path == null) {
+            return metrics.finish(null, -1, expansions, peakFrontier, startNanos);
+        }
+        if (observer != null) {
+            observer.onPath(path);
+        }
+        return metrics.finish(path, rhs[start], expansions, peakFrontier, startNanos);
+    }
+    
+    /**
+     * Discards all state and seeds the search at a new end.
+     */
+    private void initialize(int start, int end) {
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        open.clear();
+        km = 0;
+        connectivity = grid.getConnectivity();
+        this.start = start;
+        this.goal = end;
+        rhs[goal] = 0;
+        open.push(goal, key(goal));
+    }
+    
+    /**
+     * Expands inconsistent cells until the start is consistent and no
+     * queued cell could still improve it.
+     * 
+     * @return Number of expanded cells
+     */
+    private int computeShortestPath() throws InterruptedException {
+        int expansions = 0;
+        peakFrontier = open.size();
+        while (!open.isEmpty()
+                && (open.peekKey() < key(start) || rhs[start] > g[start])) {
+            Cancellation.check(expansions);
+            
+            long oldKey = open.peekKey();
+            int current = open.peek();
+            long newKey = key(current);
+            expansions++;
+            
+            if (oldKey < newKey) {
+                open.update(current, newKey);
+                continue;
+            }
+            
+            if (current != goal && current != start) {
+                if (observer != null) {
+                    observer.onVisit(current);
+                }
+            }
+            
+            int count = grid.getNeighbors(current, neighbors);
+            if (g[current] > rhs[current]) {
+                // Overconsistent: settle the cell and relax its predecessors
+                g[current] = rhs[current];
+                open.pop();
+                for (int i = 0; i < count; i++) {
+                    int predecessor = neighbors[i];
+                    int cost = g[current] + grid.stepCost(predecessor, current);
+                    if (predecessor != goal && cost < rhs[predecessor]) {
+                        rhs[predecessor] = cost;
+                        updateVertex(predecessor);
+                    }
+                }
+            } else {
+                // Underconsistent: forget the old value and re-derive dependents
+                g[current] = INFINITY;
+                updateRhs(current);
+                for (int i = 0; i < count; i++) {
+                    updateRhs(neighbors[i]);
+                }
+            }
+            peakFrontier = Math.max(peakFrontier, open.size());
+        }
+        return expansions;
+    }
+    
+    /**
+     * Re-evaluates a cell and all eight cells around it, walls included.
+     * On eight-way grids a wall also changes the diagonal moves between
+     * the cells beside it.
+     */
+    private void updateAround(int cell) {
+        int cols = grid.getCols();
+        int row = cell / cols;
+        int col = cell - row * cols;
+        for (int r = Math.max(0, row - 1); r <= Math.min(grid.getRows() - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                updateRhs(r * cols + c);
+            }
+        }
+    }
+    
+    /**
+     * Recomputes a cell's one-step lookahead from its successors.
+     */
+    private void updateRhs(int cell) {
+        if (cell == goal) return;
+        int best = INFINITY;
+        if (!grid.isWall(cell)) {
+            int count = grid.getNeighbors(cell, successors);
+            for (int i = 0; i < count; i++) {
+                int next = successors[i];
+                if (g[next] != INFINITY && g[next] + grid.stepCost(cell, next) < best) {
+                    best = g[next] + grid.stepCost(cell, next);
+                }
+            }
+        }
+        rhs[cell] = best;
+        updateVertex(cell);
+    }
+    
+    /**
+     * Keeps a cell in the open list exactly while it is inconsistent.
+     */
+    private void updateVertex(int cell) {
+        if (g[cell] != rhs[cell]) {
+            open.update(cell, key(cell));
+        } else {
+            open.remove(cell);
+        }
+    }
+    
+    /**
+     * Packs the lexicographic D* Lite key [min(g, rhs) + h + km; min(g, rhs)].
+     */
+    private long key(int cell) {
+        int base = Math.min(g[cell], rhs[cell]);
+        if (base == INFINITY) {
+            return Long.MAX_VALUE;
+        }
+        long primary = (long) base + heuristic(start, cell) + km;
+        return (primary << 32) | base;
+    }
+    
+    /**
+     * Walks from the start to the end, always stepping to the successor
+     * with the lowest cost plus g.
+     * 
+     * @return Cell indices from start to end, or null if the walk gets stuck
+     */
+    private int[] extractPath() {
+        IntList path = new IntList(64);
+        int current = start;
+        path.add(current);
+        // A consistent solution never revisits a cell, so the walk is bounded
+        while (current != goal && path.size <= grid.size()) {
+            int best = -1;
+            long bestCost = Long.MAX_VALUE;
+            int count = grid.getNeighbors(current, successors);
+            for (int i = 0; i < count; i++) {
+                int next = successors[i];
+                if (g[next] != INFINITY && (long) g[next] + grid.stepCost(current, next) < bestCost) {
+                    best = next;
+                    bestCost = (long) g[next] + grid.stepCost(current, next);
+                }
+            }
+            if (best == -1) {
+                return null;
+            }
+            current = best;
+            path.add(current);
+        }
+        return current == goal ? Arrays.copyOf(path.items, path.size) : null;
+    }
+    
+    /**
+     * Calculates Manhattan or octile distance between two cells.
+     */
+    private int heuristic(int a, int b) {
+        return grid.distance(a, b);
+    }
+}
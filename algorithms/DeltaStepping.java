@@ -0,0 +1,315 @@
+package algorithms;
+
+import model.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel Dijkstra using delta-stepping.
+ * <p>
+ * Cells are kept in buckets of width delta by tentative distance. The
+ * lowest non-empty bucket is settled in phases: every cell in it relaxes
+ * its light edges (cost at most delta) in parallel, which can refill the
+ * same bucket, until it stays empty. Then the settled cells relax their
+ * heavy edges once. Each cell's distance and parent are packed into one
+ * long and lowered with compare-and-set, so concurrent relaxations never
+ * leave a parent that does not match the distance. The long also carries
+ * the search generation, so entries left by earlier searches read as
+ * unreached and starting a search does not clear the array.
+ * <p>
+ * Each step costs {@link GridMap#stepCost}. With delta at least the
+ * largest step cost every edge is light, and with delta equal to the
+ * cheapest step on a map of unit costs each bucket is one BFS level.
+ * Distances equal those of {@link Dijkstra}.
+ */
+public class DeltaStepping implements Pathfinder {
+    /** Distance of cells the current search has not reached */
+    private static final long UNREACHED = 0xFFFFFFFFL;
+    
+    /** Direction code of a cell without a parent */
+    private static final int NO_PARENT = 15;
+    
+    /** Largest generation before the entries are cleared */
+    private static final int MAX_GENERATION = (1 << 28) - 1;
+    
+    private final GridMap grid;
+    private final int cols;
+    
+    /** Configured bucket width, or 0 to follow the cheapest step */
+    private final int delta;
+    private final ExecutorService pool;
+    private final int parallelism;
+    
+    /** Bucket width of the current search */
+    private int width;
+    
+    /**
+     * Generation in the top 28 bits, then the distance in 32 bits and the
+     * direction to the parent in the low 4 bits
+     */
+    private final AtomicLongArray entries;
+    private int generation;
+    
+    /** Stamps of the last phase and bucket that took each cell */
+    private final int[] phaseMark;
+    private final int[] settledMark;
+    private int stamp;
+    private final SearchMetrics metrics = SearchMetrics.forAlgorithm("DeltaStepping");
+    private SearchObserver observer;
+    
+    /**
+     * Creates a delta-stepping pathfinder that runs on the common
+     * ForkJoinPool, with delta set to the cheapest step of the map's
+     * connectivity at each search.
+     * 
+     * @param grid The grid to search, not modified during a search
+     */
+    public DeltaStepping(GridMap grid) {
+        this(grid, 0, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+    
+    /**
+     * Creates a delta-stepping pathfinder.
+     * 
+     * @param grid The grid to search, not modified during a search
+     * @param delta Bucket width, at least 1, or 0 for the cheapest step
+     * @param pool Executor that relaxes bucket chunks
+     * @param parallelism Number of threads the executor can use
+     */
+    public DeltaStepping(GridMap grid, int delta, ExecutorService pool, int parallelism) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("delta must not be negative");
+        }
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.delta = delta;
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+        this.entries = new AtomicLongArray(grid.size());
+        this.phaseMark = new int[grid.size()];
+        this.settledMark = new int[grid.size()];
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return observer;
+    }
+    
+    /**
+     * Finds path using delta-stepping.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    @Override
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        nextGeneration();
+        // Cells cost at least 1, so no step is cheaper than a straight one
+        width = delta > 0 ? delta : grid.getConnectivity().straightCost();
+        
+        List<IntList> buckets = new ArrayList<>();
+        entries.set(start, pack(0, NO_PARENT));
+        bucket(buckets, 0).add(start);
+        int expansions = 0;
+        int peakFrontier = 0;
+        
+        for (int b = 0; b < buckets.size(); b++) {
+            if (distance(end) < (long) b * width) break;
+            
+            IntList settled = new IntList(16);
+            int bucketStamp = nextStamp();
+            while (buckets.get(b) != null && buckets.get(b).size > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                
+                // Take the bucket and drop duplicates and cells that have since
+                // moved to a lower one. A cell lowered again within the bucket is
+                // relaxed again but settled once.
+                IntList phase = buckets.get(b);
+                buckets.set(b, new IntList(16));
+                int phaseStamp = nextStamp();
+                int[] cells = new int[phase.size];
+                int count = 0;
+                for (int i = 0; i < phase.size; i++) {
+                    int cell = phase.items[i];
+                    if (phaseMark[cell] != phaseStamp && distance(cell) / width == b) {
+                        phaseMark[cell] = phaseStamp;
+                        cells[count++] = cell;
+                        if (settledMark[cell] != bucketStamp) {
+                            settledMark[cell] = bucketStamp;
+                            settled.add(cell);
+                        }
+                    }
+                }
+                peakFrontier = Math.max(peakFrontier, phase.size);
+                distribute(buckets, relax(cells, count, true));
+            }
+            
+            int[] cells = Arrays.copyOf(settled.items, settled.size);
+            if (width < grid.getConnectivity().maxStepCost()) {
+                distribute(buckets, relax(cells, cells.length, false));
+            }
+            buckets.set(b, null);
+            expansions += settled.size;
+            
+            if (observer != null) {
+                for (int cell : cells) {
+                    if (cell != start && cell != end) {
+                        observer.onVisit(cell);
+                    }
+                }
+            }
+        }
+        
+        long cost = distance(end);
+        if (cost == UNREACHED) {
+            return metrics.finish(null, -1, expansions, peakFrontier, startNanos);
+        }
+        
+        // Size the path by its steps, not its cost, which can be far larger
+        int length = 0;
+        for (int cell = end; cell != SearchState.NONE; cell = parent(cell)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = end, i = length - 1; cell != SearchState.NONE; cell = parent(cell)) {
+            path[i--] = cell;
+        }
+        if (observer != null) {
+            observer.onPath(path);
+        }
+        return metrics.finish(path, (int) cost, expansions, peakFrontier, startNanos);
+    }
+    
+    /**
+     * Relaxes the light or heavy edges of a set of cells in parallel.
+     * 
+     * @return Cells whose distance dropped, one list per chunk
+     */
+    private IntList[] relax(int[] cells, int count, boolean light) throws InterruptedException {
+        int width = this.width;
+        return ParallelChunks.run(pool, parallelism, count, (from, to, improved) -> {
+            int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+            for (int i = from; i < to; i++) {
+                int current = cells[i];
+                long base = distance(current);
+                int neighborCount = grid.getNeighbors(current, neighbors);
+                for (int j = 0; j < neighborCount; j++) {
+                    int neighbor = neighbors[j];
+                    int cost = grid.stepCost(current, neighbor);
+                    if ((cost <= width) == light && lower(neighbor, base + cost, current)) {
+                        improved.add(neighbor);
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Lowers a cell's distance if the new one is shorter.
+     * 
+     * @return Whether the distance was lowered
+     */
+    private boolean lower(int cell, long cost, int parent) {
+        long next = pack(cost, direction(cell, parent));
+        while (true) {
+            long entry = entries.get(cell);
+            if (unpack(entry) <= cost) return false;
+            if (entries.compareAndSet(cell, entry, next)) return true;
+        }
+    }
+    
+    /**
+     * Files cells with lowered distances into the bucket of their current
+     * distance. A cell may end up in several buckets; stale copies are
+     * skipped when their bucket is processed.
+     */
+    private void distribute(List<IntList> buckets, IntList[] improved) {
+        for (IntList list : improved) {
+            for (int i = 0; i < list.size; i++) {
+                int cell = list.items[i];
+                bucket(buckets, (int) (distance(cell) / width)).add(cell);
+            }
+        }
+    }
+    
+    private static IntList bucket(List<IntList> buckets, int index) {
+        while (buckets.size() <= index) {
+            buckets.add(null);
+        }
+        IntList bucket = buckets.get(index);
+        if (bucket == null) {
+            bucket = new IntList(16);
+            buckets.set(index, bucket);
+        }
+        return bucket;
+    }
+    
+    /**
+     * Starts a new generation, which marks every cell unreached. The
+     * entries are only cleared when the generation wraps, splitting the
+     * work across the pool for large grids.
+     */
+    private void nextGeneration() throws InterruptedException {
+        if (generation == MAX_GENERATION) {
+            ParallelChunks.run(pool, parallelism, entries.length(), (from, to, unused) -> {
+                for (int i = from; i < to; i++) {
+                    entries.set(i, 0L);
+                }
+            });
+            generation = 0;
+        }
+        generation++;
+    }
+    
+    /**
+     * Advances the stamp that marks cells taken by a phase or bucket,
+     * clearing the marks when it wraps.
+     */
+    private int nextStamp() {
+        if (++stamp == 0) {
+            Arrays.fill(phaseMark, 0);
+            Arrays.fill(settledMark, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+    
+    private long distance(int cell) {
+        return unpack(entries.get(cell));
+    }
+    
+    /**
+     * Gets the distance in an entry, or UNREACHED if an earlier search
+     * wrote it.
+     */
+    private long unpack(long entry) {
+        return entry >>> 36 == generation ? entry >>> 4 & UNREACHED : UNREACHED;
+    }
+    
+    private int parent(int cell) {
+        int code = (int) entries.get(cell) & 15;
+        return code == NO_PARENT ? SearchState.NONE : cell + (code / 3 - 1) * cols + code % 3 - 1;
+    }
+    
+    /**
+     * Gets the code of the move from a cell to its parent, a neighbor.
+     */
+    private int direction(int cell, int parent) {
+        return (parent / cols - cell / cols + 1) * 3 + parent % cols - cell % cols + 1;
+    }
+    
+    private long pack(long cost, int direction) {
+        return (long) generation << 36 | cost << 4 | direction;
+    }
+}
@@ -0,0 +1,103 @@
+package algorithms;
+
+import model.*;
+
+/**
+ * Dijkstra's algorithm with a bucket queue (Dial's algorithm).
+ * <p>
+ * Step costs are small integers, so every tentative distance in the open
+ * list lies within the largest step cost of the one being expanded. The
+ * open list is a ring of one bucket per distance up to that cost, indexed
+ * by distance modulo the ring size, making pushes and pops O(1) instead of
+ * O(log n). The ring has 256 buckets on four-way grids and grows to fit
+ * the scaled step costs of eight-way grids.
+ * A cell whose distance improves is pushed again and its stale entry is
+ * skipped when its old bucket comes up.
+ */
+public class DialDijkstra extends AbstractPathfinder {
+    private IntList[] buckets = new IntList[0];
+    
+    /**
+     * Creates a Dial's algorithm pathfinder.
+     * 
+     * @param grid The grid to search
+     */
+    public DialDijkstra(GridMap grid) {
+        super(grid);
+    }
+    
+    /**
+     * Finds path using Dijkstra's algorithm over a bucket queue.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        begin();
+        int ring = grid.getConnectivity().maxStepCost() + 1;
+        if (buckets.length != ring) {
+            buckets = new IntList[ring];
+            for (int i = 0; i < ring; i++) {
+                buckets[i] = new IntList(64);
+            }
+        }
+        for (IntList bucket : buckets) {
+            bucket.clear();
+        }
+        
+        int[] gCost = state.gCost;
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        int expansions = 0;
+        int pending = 1;
+        
+        state.reach(start, 0, SearchState.NONE);
+        buckets[0].add(start);
+        
+        for (int distance = 0; pending > 0; distance++) {
+            IntList bucket = buckets[distance % ring];
+            // Step costs are between 1 and ring - 1, so nothing is pushed
+            // into the bucket being drained
+            for (int i = 0; i < bucket.size; i++) {
+                Cancellation.check(pops);
+                
+                int current = bucket.items[i];
+                pending--;
+                pops++;
+                if (state.isClosed(current) || gCost[current] != distance) continue;
+                
+                state.close(current);
+                expansions++;
+                
+                if (current == end) {
+                    return found(current, distance, expansions);
+                }
+                
+                if (current != start) {
+                    visit(current);
+                }
+                
+                int count = grid.getNeighbors(current, neighbors);
+                generated += count;
+                for (int j = 0; j < count; j++) {
+                    int neighbor = neighbors[j];
+                    if (state.isClosed(neighbor)) continue;
+                    
+                    int newCost = distance + grid.stepCost(current, neighbor);
+                    
+                    if (newCost < state.getCost(neighbor)) {
+                        state.reach(neighbor, newCost, current);
+                        buckets[newCost % ring].add(neighbor);
+                        pending++;
+                        push(neighbor);
+                    }
+                }
+                frontier(pending);
+            }
+            bucket.clear();
+        }
+        
+        return notFound(expansions);
+    }
+}
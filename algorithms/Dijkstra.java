@@ -1,92 +1,75 @@
 package algorithms;
 
 import model.*;
-import ui.*;
-import java.util.*;
 
 /**
- * Dijkstra's pathfinding algorithm.
+ * Dijkstra's pathfinding algorithm. Each step costs
+ * {@link GridMap#stepCost}.
  */
-public class Dijkstra implements Pathfinder {
-    private Grid grid;
-    private VisualizerPanel panel;
+public class Dijkstra extends AbstractPathfinder {
     
     /**
      * Creates a Dijkstra pathfinder.
      * 
      * @param grid The grid to search
-     * @param panel The visualization panel
      */
-    public Dijkstra(Grid grid, VisualizerPanel panel) {
-        this.grid = grid;
-        this.panel = panel;
+    public Dijkstra(GridMap grid) {
+        super(grid);
     }
     
     /**
      * Finds path using Dijkstra's algorithm.
      * 
-     * @return true if path found, false otherwise
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
      * @throws InterruptedException
      */
-    public boolean findPath() throws InterruptedException {
-        grid.clearPath();
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        begin();
         
-        PriorityQueue<Cell> queue = new PriorityQueue<>((a, b) -> a.gCost - b.gCost);
-        Set<Cell> visited = new HashSet<>();
-        Cell start = grid.getStartCell();
-        Cell end = grid.getEndCell();
+        int[] gCost = state.gCost;
         
-        start.gCost = 0;
-        queue.add(start);
+        IndexedHeap queue = state.heap();
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        int expansions = 0;
+        
+        state.reach(start, 0, SearchState.NONE);
+        queue.push(start, 0);
         
         while (!queue.isEmpty()) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException();
-            }
-            
-            Cell current = queue.poll();
+            Cancellation.check(expansions);
             
-            if (visited.contains(current)) continue;
-            visited.add(current);
+            int current = queue.pop();
+            pops++;
+            state.close(current);
+            expansions++;
             
             if (current == end) {
-                reconstructPath(current);
-                return true;
+                return found(current, gCost[current], expansions);
             }
             
-            if (current != start && current != end) {
-                current.type = Cell.CellType.VISITED;
-                panel.repaint();
-                Thread.sleep(10);
+            if (current != start) {
+                visit(current);
             }
             
-            for (Cell neighbor : grid.getNeighbors(current)) {
-                if (visited.contains(neighbor)) continue;
+            int count = grid.getNeighbors(current, neighbors);
+            generated += count;
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (state.isClosed(neighbor)) continue;
                 
-                int newCost = current.gCost + 1;
+                int newCost = gCost[current] + grid.stepCost(current, neighbor);
                 
-                if (newCost < neighbor.gCost || neighbor.gCost == 0) {
-                    neighbor.gCost = newCost;
-                    neighbor.parent = current;
-                    queue.add(neighbor);
+                if (newCost < state.getCost(neighbor)) {
+                    state.reach(neighbor, newCost, current);
+                    queue.update(neighbor, newCost);
+                    push(neighbor);
                 }
             }
+            frontier(queue.size());
         }
         
-        return false;
-    }
-    
-    /**
-     * Reconstructs path by following parent pointers.
-     */
-    private void reconstructPath(Cell current) {
-        while (current != null && current != grid.getStartCell()) {
-            if (current != grid.getEndCell()) {
-                current.type = Cell.CellType.PATH;
-            }
-            current = current.parent;
-        }
-        panel.repaint();
+        return notFound(expansions);
     }
 }
-
@@ -0,0 +1,362 @@
+package algorithms;
+
+import model.*;
+import java.util.Arrays;
+
+/**
+ * Distances to one goal from every cell, with the first step of a cheapest
+ * path out of each cell, so any number of agents heading to the same goal
+ * can read their next move in constant time instead of running a search
+ * each.
+ * <p>
+ * The field is built by a reverse Dijkstra from the goal and stores one
+ * int distance and one direction byte per cell. It listens for wall and
+ * cost edits and repairs itself in place. An edit that makes moves more
+ * expensive invalidates the cells whose step leads through the edited
+ * cell, along with everything downstream of them, and re-derives just
+ * those from their neighbors. An edit that makes moves cheaper lets
+ * improved distances spread outward from the edited cell. Missed edits,
+ * connectivity changes and edits of the goal itself rebuild the whole
+ * field on the next read.
+ */
+public class FlowField implements GridListener {
+    /** Distance of cells that cannot reach the goal */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    
+    /** Row and column offset of each direction: up, down, left, right, then diagonals */
+    private static final int[] ROW = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] COL = {0, 0, -1, 1, -1, 1, -1, 1};
+    private static final byte NONE = -1;
+    
+    /** Temporary distance of cells collected for invalidation */
+    private static final int COLLECTED = UNREACHABLE - 1;
+    
+    private final Grid grid;
+    private final int cols;
+    private final int[] distance;
+    private final byte[] direction;
+    private final IndexedHeap open;
+    private final int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+    private int goal;
+    
+    private boolean dirty = true;
+    private long version;
+    
+    /** Largest finite distance, or an upper bound on it while stale */
+    private int maxDistance;
+    private boolean maxStale;
+    
+    /** Cells invalidated by the last repair */
+    private int[] invalid = new int[64];
+    private int invalidCount;
+    
+    /**
+     * Creates a flow field toward a goal and registers it for wall and
+     * cost changes.
+     * 
+     * @param grid The grid to cover
+     * @param goal Goal cell index
+     */
+    public FlowField(Grid grid, int goal) {
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.distance = new int[grid.size()];
+        this.direction = new byte[grid.size()];
+        this.open = new IndexedHeap(grid.size());
+        this.goal = goal;
+        grid.addListener(this);
+    }
+    
+    /**
+     * Gets the goal cell.
+     */
+    public synchronized int getGoal() {
+        return goal;
+    }
+    
+    /**
+     * Moves the goal and rebuilds the field on the next read.
+     * 
+     * @param goal Goal cell index
+     */
+    public synchronized void setGoal(int goal) {
+        if (goal != this.goal) {
+            this.goal = goal;
+            dirty = true;
+        }
+    }
+    
+    /**
+     * Gets the cost of the cheapest path from a cell to the goal.
+     * 
+     * @param index Cell index
+     * @return The path cost, or {@link #UNREACHABLE}
+     */
+    public synchronized int getDistance(int index) {
+        refresh();
+        return distance[index];
+    }
+    
+    /**
+     * Gets the next cell on a cheapest path from a cell to the goal.
+     * 
+     * @param index Cell index
+     * @return The next cell, or -1 at the goal or if the goal cannot be reached
+     */
+    public synchronized int next(int index) {
+        refresh();
+        return step(index);
+    }
+    
+    /**
+     * Follows the field from a cell to the goal.
+     * 
+     * @param from Start cell index
+     * @return Cell indices from the start to the goal, empty if the goal
+     *         cannot be reached
+     */
+    public synchronized int[] path(int from) {
+        refresh();
+        if (distance[from] == UNREACHABLE) {
+            return new int[0];
+        }
+        IntList path = new IntList(64);
+        for (int cell = from; cell != -1; cell = step(cell)) {
+            path.add(cell);
+        }
+        return Arrays.copyOf(path.items, path.size);
+    }
+    
+    /**
+     * Gets the largest finite distance, for scaling a heatmap. It is kept
+     * up to date as the field is repaired, and only rescanned after a
+     * repair lowered or removed the farthest cell.
+     */
+    public synchronized int getMaxDistance() {
+        refresh();
+        if (maxStale) {
+            maxDistance = 0;
+            for (int value : distance) {
+                if (value != UNREACHABLE && value > maxDistance) {
+                    maxDistance = value;
+                }
+            }
+            maxStale = false;
+        }
+        return maxDistance;
+    }
+    
+    /**
+     * Copies the distance of every cell, so a reader can scan the field
+     * under one lock.
+     * 
+     * @param out Array of at least one entry per cell
+     * @return The largest finite distance
+     */
+    public synchronized int copyDistances(int[] out) {
+        int max = getMaxDistance();
+        System.arraycopy(distance, 0, out, 0, distance.length);
+        return max;
+    }
+    
+    /**
+     * Unregisters from the grid.
+     */
+    public void close() {
+        grid.removeListener(this);
+    }
+    
+    @Override
+    public synchronized void wallChanged(int index, boolean wall) {
+        edited(index);
+    }
+    
+    @Override
+    public synchronized void costChanged(int index, int oldCost, int newCost) {
+        edited(index);
+    }
+    
+    private int step(int index) {
+        byte d = direction[index];
+        return d == NONE ? -1 : index + ROW[d] * cols + COL[d];
+    }
+    
+    private void refresh() {
+        if (dirty || version != grid.getVersion()) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Computes the whole field with a reverse Dijkstra from the goal.
+     */
+    private void rebuild() {
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(direction, NONE);
+        open.clear();
+        maxDistance = 0;
+        maxStale = false;
+        if (!grid.isWall(goal)) {
+            distance[goal] = 0;
+            open.push(goal, 0);
+            propagate();
+        }
+        dirty = false;
+        version = grid.getVersion();
+    }
+    
+    /**
+     * Repairs the field after one cell was edited.
+     */
+    private void edited(int index) {
+        if (dirty) return;
+        if (version + 1 != grid.getVersion() || index == goal) {
+            dirty = true;
+            return;
+        }
+        version = grid.getVersion();
+        
+        int rows = grid.getRows();
+        int row = index / cols;
+        int col = index - row * cols;
+        int top = Math.max(0, row - 1), bottom = Math.min(rows - 1, row + 1);
+        int left = Math.max(0, col - 1), right = Math.min(cols - 1, col + 1);
+        
+        // Moves out of the 3x3 block are the only ones the edit touched.
+        // Cells whose step became invalid or dearer lose their distance,
+        // and so does everything that stepped through them.
+        invalidCount = 0;
+        for (int r = top; r <= bottom; r++) {
+            for (int c = left; c <= right; c++) {
+                int cell = r * cols + c;
+                if (distance[cell] != UNREACHABLE && cell != goal && !isStepValid(cell)) {
+                    invalidate(cell);
+                }
+            }
+        }
+        for (int i = 0; i < invalidCount; i++) {
+            int cell = invalid[i];
+            int count = grid.getNeighbors(cell, neighbors);
+            for (int n = 0; n < count; n++) {
+                int child = neighbors[n];
+                if (distance[child] != UNREACHABLE && step(child) == cell) {
+                    invalidate(child);
+                }
+            }
+        }
+        for (int i = 0; i < invalidCount; i++) {
+            int cell = invalid[i];
+            distance[cell] = UNREACHABLE;
+            direction[cell] = NONE;
+        }
+        for (int i = 0; i < invalidCount; i++) {
+            relaxFromNeighbors(invalid[i]);
+        }
+        
+        // Moves that became cheaper or possible also start in the block
+        for (int r = top; r <= bottom; r++) {
+            for (int c = left; c <= right; c++) {
+                relaxFromNeighbors(r * cols + c);
+            }
+        }
+        propagate();
+    }
+    
+    /**
+     * Checks whether a cell's stored step is still allowed and still
+     * accounts for its distance.
+     */
+    private boolean isStepValid(int cell) {
+        if (grid.isWall(cell)) return false;
+        int next = step(cell);
+        if (next == -1 || distance[next] == UNREACHABLE) return false;
+        int count = grid.getNeighbors(cell, neighbors);
+        for (int n = 0; n < count; n++) {
+            if (neighbors[n] == next) {
+                return distance[cell] == distance[next] + grid.stepCost(cell, next);
+            }
+        }
+        return false;
+    }
+    
+    private void invalidate(int cell) {
+        if (distance[cell] == COLLECTED) return;
+        if (distance[cell] == maxDistance) {
+            maxStale = true;
+        }
+        direction[cell] = NONE;
+        distance[cell] = COLLECTED;
+        if (invalidCount == invalid.length) {
+            invalid = Arrays.copyOf(invalid, invalidCount * 2);
+        }
+        invalid[invalidCount++] = cell;
+    }
+    
+    /**
+     * Lowers a cell's distance to the best one reachable through a single
+     * step to a neighbor, and queues it if that improved it.
+     */
+    private void relaxFromNeighbors(int cell) {
+        if (cell == goal || grid.isWall(cell)) return;
+        int count = grid.getNeighbors(cell, neighbors);
+        for (int n = 0; n < count; n++) {
+            int neighbor = neighbors[n];
+            if (distance[neighbor] >= COLLECTED) continue;
+            int cost = distance[neighbor] + grid.stepCost(cell, neighbor);
+            if (cost < distance[cell]) {
+                lower(cell, cost, neighbor);
+            }
+        }
+    }
+    
+    /**
+     * Settles queued cells in distance order, relaxing the cells that can
+     * step into each one.
+     */
+    private void propagate() {
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            int count = grid.getNeighbors(current, neighbors);
+            for (int n = 0; n < count; n++) {
+                int predecessor = neighbors[n];
+                if (predecessor == goal) continue;
+                int cost = distance[current] + grid.stepCost(predecessor, current);
+                if (cost < distance[predecessor]) {
+                    lower(predecessor, cost, current);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gives a cell a lower distance through a neighbor and queues it.
+     */
+    private void lower(int cell, int cost, int next) {
+        if (distance[cell] == maxDistance) {
+            maxStale = true;
+        }
+        if (cost > maxDistance) {
+            maxDistance = cost;
+        }
+        distance[cell] = cost;
+        direction[cell] = directionOf(cell, next);
+        queue(cell, cost);
+    }
+    
+    private void queue(int cell, int cost) {
+        if (open.contains(cell)) {
+            open.decreaseKey(cell, cost);
+        } else {
+            open.push(cell, cost);
+        }
+    }
+    
+    private byte directionOf(int from, int to) {
+        int dr = to / cols - from / cols;
+        int dc = to % cols - from % cols;
+        for (byte d = 0; d < ROW.length; d++) {
+            if (ROW[d] == dr && COL[d] == dc) return d;
+        }
+        throw new IllegalArgumentException("Cells are not adjacent: " + from + ", " + to);
+    }
+}
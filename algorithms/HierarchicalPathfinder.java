@@ -0,0 +1,526 @@
+package algorithms;
+
+import model.*;
+import java.util.*;
+
+/**
+ * Hierarchical pathfinding (HPA*) for large grids.
+ * <p>
+ * The grid is split into square clusters. Wherever two neighboring
+ * clusters share a run of open cells along their border, transition cells
+ * become abstract nodes, and the in-cluster distances between the nodes of
+ * each cluster are precomputed. A query links the start and end to the
+ * nodes of their clusters, runs A* over the small abstract graph, and then
+ * refines each abstract edge with a search confined to one cluster.
+ * <p>
+ * Paths are near-optimal. The transition spacing knob adds extra
+ * transitions every few cells of long entrances, which brings paths closer
+ * to optimal at the cost of a larger abstract graph. Wall edits only mark
+ * the edited cluster, and the bordering cluster when the edit touches a
+ * border, for a rebuild before the next query. Cell costs are ignored
+ * and paths minimize the number of steps. On eight-way grids, clusters
+ * are searched with diagonal moves, and when corners may be cut, border
+ * cells with a diagonal move into another cluster become nodes as well.
+ */
+public class HierarchicalPathfinder implements Pathfinder, GridListener {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    
+    private final Grid grid;
+    private final int rows, cols;
+    private final int clusterSize;
+    private final int transitionSpacing;
+    private final int clusterRows, clusterCols;
+    private SearchObserver observer;
+    
+    /** Sorted node cells of each cluster */
+    private final int[][] nodes;
+    
+    /** Row-major node-to-node distance matrix of each cluster */
+    private final int[][] distances;
+    
+    /** First abstract node id of each cluster, valid when not dirty */
+    private final int[] offsets;
+    private int nodeCount;
+    
+    /** Clusters waiting for a rebuild */
+    private final long[] dirty;
+    private boolean anyDirty;
+    
+    /** Connectivity the clusters were built for */
+    private Connectivity connectivity;
+    
+    /** Scratch space for searches confined to one cluster */
+    private final int[] localDist;
+    private final int[] localParent;
+    private final int[] localQueue;
+    private final int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+    
+    /** Scratch space for the abstract search, grown with the node count */
+    private SearchState abstractState;
+    private final SearchMetrics metrics = SearchMetrics.forAlgorithm("HierarchicalPathfinder");
+    
+    /**
+     * Creates a hierarchical pathfinder with 16x16 clusters and classic
+     * transition placement.
+     * 
+     * @param grid The grid to search
+     */
+    public HierarchicalPathfinder(Grid grid) {
+        this(grid, 16, 0);
+    }
+    
+    /**
+     * Creates a hierarchical pathfinder and builds the abstract graph.
+     * 
+     * @param grid The grid to search
+     * @param clusterSize Side length of a cluster in cells
+     * @param transitionSpacing Extra transition every this many cells along
+     *        long entrances, or 0 for one or two transitions per entrance
+     */
+    public HierarchicalPathfinder(Grid grid, int clusterSize, int transitionSpacing) {
+        this.grid = grid;
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.clusterSize = clusterSize;
+        this.transitionSpacing = transitionSpacing;
+        this.clusterRows = (rows + clusterSize - 1) / clusterSize;
+        this.clusterCols = (cols + clusterSize - 1) / clusterSize;
+        
+        int clusters = clusterRows * clusterCols;
+        this.nodes = new int[clusters][];
+        this.distances = new int[clusters][];
+        this.offsets = new int[clusters + 1];
+        this.dirty = Bits.create(clusters);
+        this.localDist = new int[clusterSize * clusterSize];
+        this.localParent = new int[clusterSize * clusterSize];
+        this.localQueue = new int[clusterSize * clusterSize];
+        
+        this.connectivity = grid.getConnectivity();
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            rebuild(cluster);
+        }
+        renumber();
+        grid.addListener(this);
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return observer;
+    }
+    
+    /**
+     * Marks the clusters whose nodes or distances an edit can change.
+     */
+    @Override
+    public synchronized void wallChanged(int index, boolean wall) {
+        int row = index / cols;
+        int col = index % cols;
+        int clusterRow = row / clusterSize;
+        int clusterCol = col / clusterSize;
+        boolean top = row % clusterSize == 0;
+        boolean bottom = row % clusterSize == clusterSize - 1;
+        boolean left = col % clusterSize == 0;
+        boolean right = col % clusterSize == clusterSize - 1;
+        markDirty(clusterRow, clusterCol);
+        if (top) markDirty(clusterRow - 1, clusterCol);
+        if (bottom) markDirty(clusterRow + 1, clusterCol);
+        if (left) markDirty(clusterRow, clusterCol - 1);
+        if (right) markDirty(clusterRow, clusterCol + 1);
+        if (grid.getConnectivity().allowsDiagonal(true, false)) {
+            // A corner cell can also be a diagonal crossing
+            if (top && left) markDirty(clusterRow - 1, clusterCol - 1);
+            if (top && right) markDirty(clusterRow - 1, clusterCol + 1);
+            if (bottom && left) markDirty(clusterRow + 1, clusterCol - 1);
+            if (bottom && right) markDirty(clusterRow + 1, clusterCol + 1);
+        }
+    }
+    
+    private void markDirty(int clusterRow, int clusterCol) {
+        if (clusterRow >= 0 && clusterRow < clusterRows && clusterCol >= 0 && clusterCol < clusterCols) {
+            Bits.set(dirty, clusterRow * clusterCols + clusterCol);
+            anyDirty = true;
+        }
+    }
+    
+    /**
+     * Rebuilds clusters touched by edits since the last query.
+     */
+    private synchronized void refresh() {
+        if (connectivity != grid.getConnectivity()) {
+            // Every in-cluster distance depends on the allowed moves
+            connectivity = grid.getConnectivity();
+            for (int cluster = 0; cluster < nodes.length; cluster++) {
+                Bits.set(dirty, cluster);
+            }
+            anyDirty = true;
+        }
+        if (!anyDirty) return;
+        for (int word = 0; word < dirty.length; word++) {
+            long bits = dirty[word];
+            while (bits != 0) {
+                rebuild((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+            dirty[word] = 0L;
+        }
+        renumber();
+        anyDirty = false;
+    }
+    
+    private void renumber() {
+        for (int cluster = 0; cluster < nodes.length; cluster++) {
+            offsets[cluster + 1] = offsets[cluster] + nodes[cluster].length;
+        }
+        nodeCount = offsets[nodes.length];
+    }
+    
+    /**
+     * Recomputes the nodes of a cluster from its four borders and the
+     * distances between them.
+     */
+    private void rebuild(int cluster) {
+        int top = cluster / clusterCols * clusterSize;
+        int left = cluster % clusterCols * clusterSize;
+        int bottom = Math.min(top + clusterSize, rows) - 1;
+        int right = Math.min(left + clusterSize, cols) - 1;
+        
+        TreeSet<Integer> cells = new TreeSet<>();
+        if (top > 0) scanBorder(cells, top, left, 0, 1, right - left + 1, -cols);
+        if (bottom < rows - 1) scanBorder(cells, bottom, left, 0, 1, right - left + 1, cols);
+        if (left > 0) scanBorder(cells, top, left, 1, 0, bottom - top + 1, -1);
+        if (right < cols - 1) scanBorder(cells, top, right, 1, 0, bottom - top + 1, 1);
+        if (connectivity.allowsDiagonal(true, false)) {
+            addDiagonalCrossings(cells, cluster, top, left, bottom, right);
+        }
+        
+        int[] clusterNodes = new int[cells.size()];
+        int count = 0;
+        for (int cell : cells) {
+            clusterNodes[count++] = cell;
+        }
+        
+        int[] matrix = new int[count * count];
+        for (int i = 0; i < count; i++) {
+            searchCluster(cluster, clusterNodes[i]);
+            for (int j = 0; j < count; j++) {
+                matrix[i * count + j] = localDist[local(clusterNodes[j])];
+            }
+        }
+        nodes[cluster] = clusterNodes;
+        distances[cluster] = matrix;
+    }
+    
+    /**
+     * Finds entrances along one border of a cluster and adds their
+     * transition cells on this side.
+     * 
+     * @param cells Collects node cells
+     * @param row First border cell row
+     * @param col First border cell column
+     * @param dr Row step along the border
+     * @param dc Column step along the border
+     * @param length Number of cells along the border
+     * @param across Index offset to the cell on the other side
+     */
+    private void scanBorder(Set<Integer> cells, int row, int col, int dr, int dc, int length, int across) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = false;
+            if (i < length) {
+                int cell = (row + dr * i) * cols + col + dc * i;
+                open = !grid.isWall(cell) && !grid.isWall(cell + across);
+            }
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                addTransitions(cells, row, col, dr, dc, runStart, i - 1);
+                runStart = -1;
+            }
+        }
+    }
+    
+    /**
+     * Adds border cells with a diagonal move into another cluster. With
+     * corner cutting such a move can exist where no straight crossing does.
+     */
+    private void addDiagonalCrossings(Set<Integer> cells, int cluster, int top, int left, int bottom, int right) {
+        for (int row = top; row <= bottom; row++) {
+            for (int col = left; col <= right; col++) {
+                if (row != top && row != bottom && col != left && col != right) continue;
+                int cell = row * cols + col;
+                if (grid.isWall(cell)) continue;
+                int count = grid.getNeighbors(cell, neighbors);
+                for (int i = 0; i < count; i++) {
+                    int other = neighbors[i];
+                    if (other / cols != row && other % cols != col && clusterOf(other) != cluster) {
+                        cells.add(cell);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    private void addTransitions(Set<Integer> cells, int row, int col, int dr, int dc, int first, int last) {
+        int length = last - first + 1;
+        if (length < 6) {
+            int middle = first + length / 2;
+            cells.add((row + dr * middle) * cols + col + dc * middle);
+        } else {
+            cells.add((row + dr * first) * cols + col + dc * first);
+            cells.add((row + dr * last) * cols + col + dc * last);
+        }
+        if (transitionSpacing > 0) {
+            for (int i = first + transitionSpacing; i < last; i += transitionSpacing) {
+                cells.add((row + dr * i) * cols + col + dc * i);
+            }
+        }
+    }
+    
+    /**
+     * Finds path through the abstract graph and refines it cluster by
+     * cluster.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    @Override
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        refresh();
+        
+        int startCluster = clusterOf(start);
+        int endCluster = clusterOf(end);
+        int startId = nodeCount;
+        int endId = nodeCount + 1;
+        
+        // Link the endpoints to the nodes of their clusters
+        int[] startNodes = nodes[startCluster];
+        int[] startLinks = new int[startNodes.length];
+        searchCluster(startCluster, start);
+        for (int i = 0; i < startNodes.length; i++) {
+            startLinks[i] = localDist[local(startNodes[i])];
+        }
+        int direct = startCluster == endCluster ? localDist[local(end)] : INFINITY;
+        
+        int[] endNodes = nodes[endCluster];
+        int[] endLinks = new int[endNodes.length];
+        searchCluster(endCluster, end);
+        for (int i = 0; i < endNodes.length; i++) {
+            endLinks[i] = localDist[local(endNodes[i])];
+        }
+        
+        int total = nodeCount + 2;
+        if (abstractState == null || abstractState.parent.length < total) {
+            int capacity = abstractState == null ? total : Math.max(total, abstractState.parent.length * 3 / 2);
+            abstractState = new SearchState(capacity);
+        }
+        SearchState state = abstractState;
+        state.reset();
+        IndexedHeap openSet = state.heap();
+        int expansions = 0;
+        int peakFrontier = 1;
+        
+        state.reach(startId, 0, SearchState.NONE);
+        openSet.push(startId, key(0, start, end));
+        
+        while (!openSet.isEmpty()) {
+            Cancellation.check(expansions);
+            
+            int current = openSet.pop();
+            expansions++;
+            if (current == endId) break;
+            state.close(current);
+            
+            if (current == startId) {
+                for (int i = 0; i < startNodes.length; i++) {
+                    relax(state, current, offsets[startCluster] + i, startLinks[i], end);
+                }
+                relax(state, current, endId, direct, end);
+                peakFrontier = Math.max(peakFrontier, openSet.size());
+                continue;
+            }
+            
+            int cluster = clusterOfNode(current);
+            int localIndex = current - offsets[cluster];
+            int[] clusterNodes = nodes[cluster];
+            int cell = clusterNodes[localIndex];
+            if (observer != null && cell != start) {
+                observer.onVisit(cell);
+            }
+            
+            // Intra-cluster edges
+            int[] matrix = distances[cluster];
+            int count = clusterNodes.length;
+            for (int j = 0; j < count; j++) {
+                relax(state, current, offsets[cluster] + j, matrix[localIndex * count + j], end);
+            }
+            if (cluster == endCluster) {
+                relax(state, current, endId, endLinks[localIndex], end);
+            }
+            
+            // Inter-cluster edges to transition cells across the border
+            int neighborCount = grid.getNeighbors(cell, neighbors);
+            for (int i = 0; i < neighborCount; i++) {
+                int other = neighbors[i];
+                int otherCluster = clusterOf(other);
+                if (otherCluster == cluster) continue;
+                int otherLocal = Arrays.binarySearch(nodes[otherCluster], other);
+                if (otherLocal >= 0) {
+                    relax(state, current, offsets[otherCluster] + otherLocal, 1, end);
+                }
+            }
+            peakFrontier = Math.max(peakFrontier, openSet.size());
+        }
+        
+        int cost = state.getCost(endId);
+        if (cost == INFINITY) {
+            return metrics.finish(null, -1, expansions, peakFrontier, startNanos);
+        }
+        
+        int[] path = refine(state.parent, startId, endId, start, end);
+        if (observer != null) {
+            observer.onPath(path);
+        }
+        return metrics.finish(path, cost, expansions, peakFrontier, startNanos);
+    }
+    
+    private void relax(SearchState state, int from, int to, int cost, int end) {
+        if (cost == INFINITY || state.isClosed(to)) return;
+        int tentative = state.getCost(from) + cost;
+        if (tentative < state.getCost(to)) {
+            state.reach(to, tentative, from);
+            int cell = to >= nodeCount ? end : cellOfNode(to);
+            state.heap().update(to, key(tentative, cell, end));
+        }
+    }
+    
+    /**
+     * Expands the abstract path into grid cells by searching inside one
+     * cluster per abstract edge.
+     */
+    private int[] refine(int[] parent, int startId, int endId, int start, int end) {
+        ArrayDeque<Integer> waypoints = new ArrayDeque<>();
+        for (int id = endId; id != SearchState.NONE; id = parent[id]) {
+            waypoints.push(id == startId ? start : id == endId ? end : cellOfNode(id));
+        }
+        
+        int[] path = new int[16];
+        int length = 0;
+        int previous = waypoints.pop();
+        path[length++] = previous;
+        int[] segment = new int[clusterSize * clusterSize];
+        while (!waypoints.isEmpty()) {
+            int next = waypoints.pop();
+            int cluster = clusterOf(previous);
+            int steps;
+            if (cluster != clusterOf(next)) {
+                segment[0] = next;
+                steps = 1;
+            } else {
+                searchCluster(cluster, previous);
+                steps = localDist[local(next)];
+                int cell = next;
+                for (int i = steps - 1; i >= 0; i--) {
+                    segment[i] = cell;
+                    cell = localParent[local(cell)];
+                }
+            }
+            if (length + steps > path.length) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, length + steps));
+            }
+            System.arraycopy(segment, 0, path, length, steps);
+            length += steps;
+            previous = next;
+        }
+        return Arrays.copyOf(path, length);
+    }
+    
+    /**
+     * Breadth-first search from a cell that never leaves its cluster,
+     * filling the local distance and parent tables.
+     */
+    private void searchCluster(int cluster, int source) {
+        int top = cluster / clusterCols * clusterSize;
+        int left = cluster % clusterCols * clusterSize;
+        int bottom = Math.min(top + clusterSize, rows);
+        int right = Math.min(left + clusterSize, cols);
+        
+        Arrays.fill(localDist, INFINITY);
+        int head = 0, tail = 0;
+        localDist[local(source)] = 0;
+        localParent[local(source)] = SearchState.NONE;
+        localQueue[tail++] = source;
+        
+        while (head < tail) {
+            int current = localQueue[head++];
+            int next = localDist[local(current)] + 1;
+            int count = grid.getNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                int row = neighbor / cols;
+                int col = neighbor % cols;
+                if (row < top || row >= bottom || col < left || col >= right) continue;
+                int slot = local(neighbor);
+                if (localDist[slot] == INFINITY) {
+                    localDist[slot] = next;
+                    localParent[slot] = current;
+                    localQueue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Maps a cell to its slot in the per-cluster scratch tables.
+     */
+    private int local(int cell) {
+        int row = cell / cols;
+        int col = cell % cols;
+        return (row % clusterSize) * clusterSize + col % clusterSize;
+    }
+    
+    private int clusterOf(int cell) {
+        return (cell / cols) / clusterSize * clusterCols + (cell % cols) / clusterSize;
+    }
+    
+    private int clusterOfNode(int id) {
+        int cluster = Arrays.binarySearch(offsets, id);
+        if (cluster < 0) {
+            return -cluster - 2;
+        }
+        // Skip clusters without nodes that share the same offset
+        while (offsets[cluster + 1] == id) {
+            cluster++;
+        }
+        return cluster;
+    }
+    
+    private int cellOfNode(int id) {
+        int cluster = clusterOfNode(id);
+        return nodes[cluster][id - offsets[cluster]];
+    }
+    
+    /**
+     * Packs the open-list ordering: lowest fCost first, ties broken by the
+     * lower hCost.
+     */
+    private long key(int gCost, int cell, int end) {
+        long hCost = grid.steps(cell, end);
+        return ((gCost + hCost) << 32) | hCost;
+    }
+    
+    /**
+     * Gets the number of abstract nodes.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,204 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Indexed 4-ary min-heap of cell indices with primitive {@code long} keys.
+ * <p>
+ * A position table gives O(1) membership tests and lets
+ * {@link #decreaseKey(int, long)} re-sift an entry in O(log n) instead of
+ * pushing duplicates. Ties are broken by the key alone, so callers pack any
+ * secondary ordering into the low bits.
+ */
+public final class IndexedHeap {
+    private static final int ABSENT = -1;
+    
+    private final int[] items;
+    private final long[] keys;
+    private final int[] positions;
+    private int size;
+    
+    /**
+     * Creates a heap able to hold every index in {@code [0, capacity)}.
+     * 
+     * @param capacity Number of distinct items
+     */
+    public IndexedHeap(int capacity) {
+        items = new int[capacity];
+        keys = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+    
+    /**
+     * Checks whether the heap is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Gets the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Checks whether an item is in the heap.
+     */
+    public boolean contains(int item) {
+        return positions[item] != ABSENT;
+    }
+    
+    /**
+     * Gets the key of an item in the heap.
+     */
+    public long getKey(int item) {
+        return keys[positions[item]];
+    }
+    
+    /**
+     * Gets the item with the smallest key without removing it.
+     */
+    public int peek() {
+        return items[0];
+    }
+    
+    /**
+     * Gets the smallest key.
+     */
+    public long peekKey() {
+        return keys[0];
+    }
+    
+    /**
+     * Adds an item that is not yet in the heap.
+     * 
+     * @param item Cell index
+     * @param key Priority, smaller first
+     */
+    public void push(int item, long key) {
+        int slot = size++;
+        items[slot] = item;
+        keys[slot] = key;
+        positions[item] = slot;
+        siftUp(slot);
+    }
+    
+    /**
+     * Lowers the key of an item already in the heap.
+     * 
+     * @param item Cell index
+     * @param key New key, not larger than the current one
+     */
+    public void decreaseKey(int item, long key) {
+        int slot = positions[item];
+        keys[slot] = key;
+        siftUp(slot);
+    }
+    
+    /**
+     * Adds an item or changes its key in either direction.
+     * 
+     * @param item Cell index
+     * @param key New key
+     */
+    public void update(int item, long key) {
+        int slot = positions[item];
+        if (slot == ABSENT) {
+            push(item, key);
+        } else if (key < keys[slot]) {
+            keys[slot] = key;
+            siftUp(slot);
+        } else {
+            keys[slot] = key;
+            siftDown(slot);
+        }
+    }
+    
+    /**
+     * Removes and returns the item with the smallest key.
+     */
+    public int pop() {
+        int top = items[0];
+        positions[top] = ABSENT;
+        size--;
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return top;
+    }
+    
+    /**
+     * Removes an item if present.
+     * 
+     * @param item Cell index
+     */
+    public void remove(int item) {
+        int slot = positions[item];
+        if (slot == ABSENT) return;
+        positions[item] = ABSENT;
+        size--;
+        if (slot < size) {
+            long removed = keys[slot];
+            move(size, slot);
+            if (keys[slot] < removed) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+        }
+    }
+    
+    /**
+     * Removes all entries in O(size).
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[items[i]] = ABSENT;
+        }
+        size = 0;
+    }
+    
+    private void move(int from, int to) {
+        items[to] = items[from];
+        keys[to] = keys[from];
+        positions[items[to]] = to;
+    }
+    
+    private void siftUp(int slot) {
+        int item = items[slot];
+        long key = keys[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 2;
+            if (keys[parent] <= key) break;
+            move(parent, slot);
+            slot = parent;
+        }
+        items[slot] = item;
+        keys[slot] = key;
+        positions[item] = slot;
+    }
+    
+    private void siftDown(int slot) {
+        int item = items[slot];
+        long key = keys[slot];
+        while (true) {
+            int first = (slot << 2) + 1;
+            if (first >= size) break;
+            int last = Math.min(first + 4, size);
+            int best = first;
+            for (int child = first + 1; child < last; child++) {
+                if (keys[child] < keys[best]) best = child;
+            }
+            if (keys[best] >= key) break;
+            move(best, slot);
+            slot = best;
+        }
+        items[slot] = item;
+        keys[slot] = key;
+        positions[item] = slot;
+    }
+}
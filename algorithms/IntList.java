@@ -0,0 +1,26 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for per-task frontier buffers.
+ */
+final class IntList {
+    int[] items;
+    int size;
+    
+    IntList(int capacity) {
+        items = new int[Math.max(capacity, 8)];
+    }
+    
+    void add(int value) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size++] = value;
+    }
+    
+    void clear() {
+        size = 0;
+    }
+}
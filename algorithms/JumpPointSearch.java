@@ -0,0 +1,224 @@
+package algorithms;
+
+import model.*;
+
+/**
+ * Jump Point Search for uniform-cost 4-connected grids.
+ * <p>
+ * Runs A* over jump points only: from each expanded node the search scans
+ * in straight lines and skips cells that some other optimal path would
+ * reach just as cheaply, stopping at the goal or at cells with forced
+ * neighbors. A horizontal scan stops where a wall beside it ends. A
+ * vertical scan also stops where a horizontal scan from it would find a
+ * jump point. The heap only ever sees those stops, so open maps need far
+ * fewer heap operations than plain A*, and the path cost is the same.
+ * Pruning relies on every step costing the same, so cell costs are
+ * ignored. The search only moves orthogonally, so it refuses grids with
+ * diagonal moves, where it would miss goals reachable only diagonally.
+ */
+public class JumpPointSearch extends AbstractPathfinder {
+    private final int rows, cols;
+    
+    /**
+     * Creates a Jump Point Search pathfinder.
+     * 
+     * @param grid The grid to search
+     */
+    public JumpPointSearch(GridMap grid) {
+        super(grid);
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+    }
+    
+    /**
+     * Finds path using Jump Point Search.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws IllegalStateException if the grid allows diagonal moves
+     * @throws InterruptedException
+     */
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        if (grid.getConnectivity().hasDiagonals()) {
+            throw new IllegalStateException("Jump Point Search only supports four-way moves");
+        }
+        begin();
+        
+        int[] gCost = state.gCost;
+        int[] hCost = state.hCost;
+        IndexedHeap openSet = state.heap();
+        
+        int[] successors = new int[4];
+        int expansions = 0;
+        
+        state.reach(start, 0, SearchState.NONE);
+        hCost[start] = heuristic(start, end);
+        openSet.push(start, key(start));
+        
+        while (!openSet.isEmpty()) {
+            Cancellation.check(expansions);
+            
+            int current = openSet.pop();
+            pops++;
+            expansions++;
+            
+            if (current == end) {
+                fillSegments(current);
+                return found(current, gCost[current], expansions);
+            }
+            
+            state.close(current);
+            
+            if (current != start) {
+                visit(current);
+            }
+            
+            int count = findSuccessors(current, end, successors);
+            generated += count;
+            for (int i = 0; i < count; i++) {
+                int jumpPoint = successors[i];
+                if (state.isClosed(jumpPoint)) continue;
+                
+                int tentativeGCost = gCost[current] + heuristic(current, jumpPoint);
+                
+                if (!state.isReached(jumpPoint)) {
+                    state.reach(jumpPoint, tentativeGCost, current);
+                    hCost[jumpPoint] = heuristic(jumpPoint, end);
+                    openSet.push(jumpPoint, key(jumpPoint));
+                    push(jumpPoint);
+                } else if (tentativeGCost < gCost[jumpPoint]) {
+                    state.reach(jumpPoint, tentativeGCost, current);
+                    openSet.decreaseKey(jumpPoint, key(jumpPoint));
+                }
+            }
+            frontier(openSet.size());
+        }
+        
+        return notFound(expansions);
+    }
+    
+    /**
+     * Writes the jump points reachable from a node, scanning only the
+     * directions not pruned by the direction it was entered from.
+     * 
+     * @return Number of jump points written
+     */
+    private int findSuccessors(int index, int end, int[] out) {
+        int row = index / cols;
+        int col = index - row * cols;
+        int parent = state.parent[index];
+        int count = 0;
+        
+        if (parent == SearchState.NONE) {
+            count = add(out, count, jump(row, col, -1, 0, end));
+            count = add(out, count, jump(row, col, 1, 0, end));
+            count = add(out, count, jump(row, col, 0, -1, end));
+            count = add(out, count, jump(row, col, 0, 1, end));
+            return count;
+        }
+        
+        int dr = Integer.signum(row - parent / cols);
+        int dc = Integer.signum(col - parent % cols);
+        if (dc != 0) {
+            count = add(out, count, jump(row, col, -1, 0, end));
+            count = add(out, count, jump(row, col, 1, 0, end));
+            count = add(out, count, jump(row, col, 0, dc, end));
+        } else {
+            count = add(out, count, jump(row, col, 0, -1, end));
+            count = add(out, count, jump(row, col, 0, 1, end));
+            count = add(out, count, jump(row, col, dr, 0, end));
+        }
+        return count;
+    }
+    
+    /**
+     * Links the cells between consecutive jump points so the reported path
+     * contains every step, not just the jump points.
+     */
+    private void fillSegments(int end) {
+        int[] parent = state.parent;
+        int current = end;
+        while (parent[current] != SearchState.NONE) {
+            int jumpPoint = parent[current];
+            int step = current / cols == jumpPoint / cols
+                ? Integer.signum(jumpPoint - current)
+                : Integer.signum(jumpPoint - current) * cols;
+            for (int cell = current; cell != jumpPoint; cell += step) {
+                parent[cell] = cell + step;
+            }
+            current = jumpPoint;
+        }
+    }
+    
+    private static int add(int[] out, int count, int jumpPoint) {
+        if (jumpPoint != SearchState.NONE) {
+            out[count++] = jumpPoint;
+        }
+        return count;
+    }
+    
+    /**
+     * Scans from a cell in one direction and returns the first jump point,
+     * or NONE if the scan runs into a wall or the border.
+     */
+    private int jump(int row, int col, int dr, int dc, int end) {
+        if (dc != 0) {
+            return jumpHorizontal(row, col, dc, end);
+        }
+        while (true) {
+            row += dr;
+            if (!isOpen(row, col)) return SearchState.NONE;
+            
+            int index = row * cols + col;
+            if (index == end) return index;
+            
+            if ((isOpen(row, col - 1) && !isOpen(row - dr, col - 1))
+                    || (isOpen(row, col + 1) && !isOpen(row - dr, col + 1))) {
+                return index;
+            }
+            if (jumpHorizontal(row, col, -1, end) != SearchState.NONE
+                    || jumpHorizontal(row, col, 1, end) != SearchState.NONE) {
+                return index;
+            }
+        }
+    }
+    
+    /**
+     * Scans horizontally for a cell with a forced vertical neighbor.
+     */
+    private int jumpHorizontal(int row, int col, int dc, int end) {
+        while (true) {
+            col += dc;
+            if (!isOpen(row, col)) return SearchState.NONE;
+            
+            int index = row * cols + col;
+            if (index == end) return index;
+            
+            if ((isOpen(row - 1, col) && !isOpen(row - 1, col - dc))
+                    || (isOpen(row + 1, col) && !isOpen(row + 1, col - dc))) {
+                return index;
+            }
+        }
+    }
+    
+    private boolean isOpen(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols && !grid.isWall(row * cols + col);
+    }
+    
+    /**
+     * Packs the open-list ordering: lowest fCost first, ties broken by the
+     * lower hCost.
+     */
+    private long key(int index) {
+        long fCost = state.gCost[index] + state.hCost[index];
+        return (fCost << 32) | state.hCost[index];
+    }
+    
+    /**
+     * Calculates Manhattan distance between two cells.
+     */
+    private int heuristic(int a, int b) {
+        return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+    }
+}
@@ -0,0 +1,479 @@
+package algorithms;
+
+import model.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Exact distances to and from a few landmark cells, giving A* the ALT
+ * lower bound (A*, landmarks, triangle inequality): for any landmark L,
+ * {@code d(v, t) >= d(L, t) - d(L, v)} and {@code d(v, t) >= d(v, L) - d(t, L)}.
+ * On mazes and room maps this bound follows walls that the distance
+ * heuristic cannot see.
+ * <p>
+ * Landmarks are chosen by farthest-point selection on step counts: the
+ * first is the cell farthest from an arbitrary open cell, and each next
+ * one the cell farthest from all chosen so far. The exact tables are then
+ * computed with one Dijkstra per landmark, in parallel across landmarks.
+ * Distances are stored per cell with all landmarks adjacent, in 16 bits
+ * when they fit. On maps where every cell costs 1 moves are symmetric, so
+ * one table serves both directions.
+ * <p>
+ * The tables describe the map as it was when they were computed. Edits to
+ * a {@link Grid} make them stale; see {@link #isCurrent}.
+ */
+public final class Landmarks {
+    private static final int MAGIC = 0x5046414C;
+    private static final short VERSION = 1;
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final char NARROW_INFINITY = Character.MAX_VALUE;
+    
+    private final int rows;
+    private final int cols;
+    private final Connectivity connectivity;
+    private final int[] cells;
+    private final long fingerprint;
+    private final long version;
+    
+    /** Distances from each landmark, cell-major, in one of the two widths */
+    private final char[] fromNarrow, toNarrow;
+    private final int[] fromWide, toWide;
+    
+    private Landmarks(GridMap map, long version, int[] cells, long fingerprint, char[] fromNarrow, char[] toNarrow,
+                      int[] fromWide, int[] toWide) {
+        this.rows = map.getRows();
+        this.cols = map.getCols();
+        this.connectivity = map.getConnectivity();
+        this.cells = cells;
+        this.fingerprint = fingerprint;
+        this.version = version;
+        this.fromNarrow = fromNarrow;
+        this.toNarrow = toNarrow;
+        this.fromWide = fromWide;
+        this.toWide = toWide;
+    }
+    
+    /**
+     * Selects landmarks and computes their tables on the common
+     * ForkJoinPool.
+     * 
+     * @param map The map; if it is a {@link Grid} edited while this runs,
+     *        the tables come out stale
+     * @param count Number of landmarks; fewer are chosen if the map has
+     *        fewer distinct far cells
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public static Landmarks compute(GridMap map, int count) throws InterruptedException {
+        return compute(map, count, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Selects landmarks and computes their tables on the given executor.
+     * 
+     * @param map The map; if it is a {@link Grid} edited while this runs,
+     *        the tables come out stale
+     * @param count Number of landmarks
+     * @param executor Executor that runs one Dijkstra per landmark
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public static Landmarks compute(GridMap map, int count, ExecutorService executor) throws InterruptedException {
+        if (count < 1) {
+            throw new IllegalArgumentException("Landmark count must be positive: " + count);
+        }
+        // Read before the map, so edits made while this runs leave the tables stale
+        long version = versionOf(map);
+        int[] cells = select(map, count);
+        boolean symmetric = hasUniformCosts(map);
+        
+        int[][] from = new int[cells.length][];
+        int[][] to = new int[cells.length][];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int k = 0; k < cells.length; k++) {
+            int landmark = k;
+            tasks.add(() -> {
+                from[landmark] = distances(map, cells[landmark], false);
+                return null;
+            });
+            if (!symmetric) {
+                tasks.add(() -> {
+                    to[landmark] = distances(map, cells[landmark], true);
+                    return null;
+                });
+            }
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException("Landmark preprocessing failed", cause);
+            }
+        }
+        
+        int max = Math.max(maxFinite(from), symmetric ? 0 : maxFinite(to));
+        long fingerprint = fingerprint(map);
+        if (max < NARROW_INFINITY) {
+            char[] fromTable = narrow(from);
+            return new Landmarks(map, version, cells, fingerprint, fromTable, symmetric ? fromTable : narrow(to), null, null);
+        }
+        int[] fromTable = interleave(from);
+        return new Landmarks(map, version, cells, fingerprint, null, null, fromTable, symmetric ? fromTable : interleave(to));
+    }
+    
+    /**
+     * Chooses landmarks by farthest-point selection on step counts within
+     * the component of the first open cell.
+     */
+    private static int[] select(GridMap map, int count) {
+        int size = map.size();
+        int seed = 0;
+        while (seed < size && map.isWall(seed)) {
+            seed++;
+        }
+        if (seed == size) return new int[0];
+        
+        int[] steps = new int[size];
+        int[] nearest = new int[size];
+        Arrays.fill(nearest, INFINITY);
+        int[] queue = new int[size];
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        
+        int next = farthest(map, seed, steps, null, queue, neighbors);
+        int[] cells = new int[count];
+        int chosen = 0;
+        while (chosen < count) {
+            cells[chosen++] = next;
+            next = farthest(map, next, steps, nearest, queue, neighbors);
+            if (nearest[next] == 0) break;
+        }
+        return Arrays.copyOf(cells, chosen);
+    }
+    
+    /**
+     * Runs a breadth-first search from a cell and returns the reached cell
+     * farthest from it, or, when tracking the distance to the nearest
+     * landmark, the reached cell whose nearest landmark is farthest.
+     */
+    private static int farthest(GridMap map, int source, int[] steps, int[] nearest, int[] queue, int[] neighbors) {
+        Arrays.fill(steps, INFINITY);
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        steps[source] = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            int count = map.getNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (steps[neighbor] == INFINITY) {
+                    steps[neighbor] = steps[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        if (nearest == null) {
+            return queue[tail - 1];
+        }
+        int best = source;
+        for (int i = 0; i < tail; i++) {
+            int cell = queue[i];
+            nearest[cell] = Math.min(nearest[cell], steps[cell]);
+            if (nearest[cell] > nearest[best]) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Computes exact distances from a landmark to every cell, or from every
+     * cell to the landmark.
+     */
+    private static int[] distances(GridMap map, int landmark, boolean reverse) {
+        int[] dist = new int[map.size()];
+        Arrays.fill(dist, INFINITY);
+        IndexedHeap heap = new IndexedHeap(map.size());
+        int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+        dist[landmark] = 0;
+        heap.push(landmark, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.pop();
+            int count = map.getNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                int step = reverse ? map.stepCost(neighbor, current) : map.stepCost(current, neighbor);
+                int cost = dist[current] + step;
+                if (cost < dist[neighbor]) {
+                    if (dist[neighbor] == INFINITY) {
+                        heap.push(neighbor, cost);
+                    } else {
+                        heap.decreaseKey(neighbor, cost);
+                    }
+                    dist[neighbor] = cost;
+                }
+            }
+        }
+        return dist;
+    }
+    
+    private static boolean hasUniformCosts(GridMap map) {
+        for (int index = 0; index < map.size(); index++) {
+            if (map.getCost(index) != 1) return false;
+        }
+        return true;
+    }
+    
+    private static int maxFinite(int[][] tables) {
+        int max = 0;
+        for (int[] table : tables) {
+            if (table == null) continue;
+            for (int value : table) {
+                if (value != INFINITY && value > max) {
+                    max = value;
+                }
+            }
+        }
+        return max;
+    }
+    
+    private static char[] narrow(int[][] tables) {
+        int count = tables.length;
+        char[] table = new char[tables.length == 0 ? 0 : tables[0].length * count];
+        for (int k = 0; k < count; k++) {
+            int[] dist = tables[k];
+            for (int cell = 0; cell < dist.length; cell++) {
+                table[cell * count + k] = dist[cell] == INFINITY ? NARROW_INFINITY : (char) dist[cell];
+            }
+        }
+        return table;
+    }
+    
+    private static int[] interleave(int[][] tables) {
+        int count = tables.length;
+        int[] table = new int[tables.length == 0 ? 0 : tables[0].length * count];
+        for (int k = 0; k < count; k++) {
+            int[] dist = tables[k];
+            for (int cell = 0; cell < dist.length; cell++) {
+                table[cell * count + k] = dist[cell];
+            }
+        }
+        return table;
+    }
+    
+    private static long versionOf(GridMap map) {
+        return map instanceof Grid ? ((Grid) map).getVersion() : 0;
+    }
+    
+    /**
+     * Hashes the dimensions, moves, walls and costs of a map.
+     */
+    private static long fingerprint(GridMap map) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ map.getRows()) * 0x100000001b3L;
+        hash = (hash ^ map.getCols()) * 0x100000001b3L;
+        hash = (hash ^ map.getConnectivity().ordinal()) * 0x100000001b3L;
+        for (int index = 0; index < map.size(); index++) {
+            int value = map.isWall(index) ? 0 : map.getCost(index);
+            hash = (hash ^ value) * 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    /**
+     * Checks whether the tables still describe a map. Only a {@link Grid}
+     * can change; any edit to it since the tables were computed or loaded
+     * makes them stale, since a stale bound can overestimate.
+     * 
+     * @param map The map about to be searched
+     */
+    public boolean isCurrent(GridMap map) {
+        return map.getRows() == rows && map.getCols() == cols
+                && map.getConnectivity() == connectivity && versionOf(map) == version;
+    }
+    
+    /**
+     * Gets the landmark cells.
+     */
+    public int[] getCells() {
+        return cells.clone();
+    }
+    
+    /**
+     * Gets the number of landmarks.
+     */
+    public int size() {
+        return cells.length;
+    }
+    
+    /**
+     * Collects the distances between a target and every landmark, for
+     * repeated {@link #lowerBound} calls toward that target.
+     * 
+     * @param target Target cell index
+     * @return Distances from each landmark to the target, then from the
+     *         target to each landmark
+     */
+    public int[] target(int target) {
+        int count = cells.length;
+        int[] distances = new int[2 * count];
+        for (int k = 0; k < count; k++) {
+            distances[k] = from(target, k);
+            distances[count + k] = to(target, k);
+        }
+        return distances;
+    }
+    
+    /**
+     * Computes the ALT lower bound on the cost from a cell to a target.
+     * 
+     * @param index Cell index
+     * @param target Distances returned by {@link #target}
+     * @return A lower bound on the path cost, 0 if no landmark helps
+     */
+    public int lowerBound(int index, int[] target) {
+        int count = cells.length;
+        int best = 0;
+        for (int k = 0; k < count; k++) {
+            int landmarkToTarget = target[k];
+            int landmarkToCell = from(index, k);
+            if (landmarkToTarget != INFINITY && landmarkToCell != INFINITY) {
+                best = Math.max(best, landmarkToTarget - landmarkToCell);
+            }
+            int cellToLandmark = to(index, k);
+            int targetToLandmark = target[count + k];
+            if (cellToLandmark != INFINITY && targetToLandmark != INFINITY) {
+                best = Math.max(best, cellToLandmark - targetToLandmark);
+            }
+        }
+        return best;
+    }
+    
+    private int from(int index, int landmark) {
+        int slot = index * cells.length + landmark;
+        if (fromWide != null) return fromWide[slot];
+        char value = fromNarrow[slot];
+        return value == NARROW_INFINITY ? INFINITY : value;
+    }
+    
+    private int to(int index, int landmark) {
+        int slot = index * cells.length + landmark;
+        if (toWide != null) return toWide[slot];
+        char value = toNarrow[slot];
+        return value == NARROW_INFINITY ? INFINITY : value;
+    }
+    
+    /**
+     * Gets the conventional file name for the landmarks of a map file:
+     * the map's name with {@code .alt} appended.
+     * 
+     * @param mapPath Map file
+     */
+    public static Path sidecar(Path mapPath) {
+        return mapPath.resolveSibling(mapPath.getFileName() + ".alt");
+    }
+    
+    /**
+     * Writes the landmarks to a file.
+     * 
+     * @param path Destination file, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        boolean wide = fromWide != null;
+        boolean symmetric = wide ? toWide == fromWide : toNarrow == fromNarrow;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeByte(connectivity.ordinal());
+            out.writeLong(fingerprint);
+            out.writeInt(cells.length);
+            out.writeBoolean(wide);
+            out.writeBoolean(symmetric);
+            for (int cell : cells) {
+                out.writeInt(cell);
+            }
+            if (wide) {
+                writeTable(out, fromWide);
+                if (!symmetric) writeTable(out, toWide);
+            } else {
+                writeTable(out, fromNarrow);
+                if (!symmetric) writeTable(out, toNarrow);
+            }
+        }
+    }
+    
+    /**
+     * Reads landmarks written by {@link #save} for a map.
+     * 
+     * @param path Landmark file
+     * @param map The map the landmarks were computed on
+     * @return The loaded landmarks, current for the map as it is now
+     * @throws IOException If the file cannot be read, is not a landmark
+     *         file, or was computed on a different map
+     */
+    public static Landmarks load(Path path, GridMap map) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a landmark file: " + path);
+            }
+            int fileRows = in.readInt();
+            int fileCols = in.readInt();
+            int connectivity = in.readByte();
+            long fingerprint = in.readLong();
+            if (fileRows != map.getRows() || fileCols != map.getCols()
+                    || connectivity != map.getConnectivity().ordinal() || fingerprint != fingerprint(map)) {
+                throw new IOException("Landmarks were computed on a different map: " + path);
+            }
+            int count = in.readInt();
+            boolean wide = in.readBoolean();
+            boolean symmetric = in.readBoolean();
+            if (count < 0 || (long) count * map.size() > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt landmark file: " + path);
+            }
+            int[] cells = new int[count];
+            for (int k = 0; k < count; k++) {
+                cells[k] = in.readInt();
+            }
+            int length = count * map.size();
+            if (wide) {
+                int[] from = readWide(in, length);
+                return new Landmarks(map, versionOf(map), cells, fingerprint, null, null, from, symmetric ? from : readWide(in, length));
+            }
+            char[] from = readNarrow(in, length);
+            return new Landmarks(map, versionOf(map), cells, fingerprint, from, symmetric ? from : readNarrow(in, length), null, null);
+        }
+    }
+    
+    private static void writeTable(DataOutputStream out, int[] table) throws IOException {
+        for (int value : table) {
+            out.writeInt(value);
+        }
+    }
+    
+    private static void writeTable(DataOutputStream out, char[] table) throws IOException {
+        for (char value : table) {
+            out.writeChar(value);
+        }
+    }
+    
+    private static int[] readWide(DataInputStream in, int length) throws IOException {
+        int[] table = new int[length];
+        for (int i = 0; i < length; i++) {
+            table[i] = in.readInt();
+        }
+        return table;
+    }
+    
+    private static char[] readNarrow(DataInputStream in, int length) throws IOException {
+        char[] table = new char[length];
+        for (int i = 0; i < length; i++) {
+            table[i] = in.readChar();
+        }
+        return table;
+    }
+}
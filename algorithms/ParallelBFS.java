@@ -0,0 +1,169 @@
+package algorithms;
+
+import model.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous breadth-first search that expands each frontier level
+ * across a {@link ForkJoinPool}.
+ * <p>
+ * The frontier is split into chunks, and each task collects the cells it
+ * claims into its own buffer. A cell is claimed with a compare-and-set on
+ * its entry, which holds the search generation in the high word and the
+ * parent in the low word, so each cell joins exactly one next level and
+ * starting a search does not have to clear the array. Parents always come
+ * from the previous level, so the path is a shortest path. Small levels
+ * are expanded on the calling thread. Cell costs are ignored.
+ */
+public class ParallelBFS implements Pathfinder {
+    private final GridMap grid;
+    private final ExecutorService pool;
+    private final int parallelism;
+    private final AtomicLongArray parent;
+    private final SearchMetrics metrics = SearchMetrics.forAlgorithm("ParallelBFS");
+    private int generation;
+    private SearchObserver observer;
+    
+    /**
+     * Creates a parallel BFS that runs on the common ForkJoinPool.
+     * 
+     * @param grid The grid to search, not modified during a search
+     */
+    public ParallelBFS(GridMap grid) {
+        this(grid, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+    
+    /**
+     * Creates a parallel BFS that runs on the given executor.
+     * 
+     * @param grid The grid to search, not modified during a search
+     * @param pool Executor that expands frontier chunks
+     * @param parallelism Number of threads the executor can use
+     */
+    public ParallelBFS(GridMap grid, ExecutorService pool, int parallelism) {
+        this.grid = grid;
+        this.pool = pool;
+        this.parallelism = Math.max(1, parallelism);
+        this.parent = new AtomicLongArray(grid.size());
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        this.observer = observer;
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return observer;
+    }
+    
+    /**
+     * Finds path using level-synchronous parallel BFS.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    @Override
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        if (++generation == 0) {
+            // Tags wrapped around, old entries could look current
+            for (int i = 0; i < parent.length(); i++) {
+                parent.set(i, 0L);
+            }
+            generation = 1;
+        }
+        
+        int[] frontier = { start };
+        int size = 1;
+        int expansions = 0;
+        int peakFrontier = 1;
+        parent.set(start, tag(SearchState.NONE));
+        
+        while (size > 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            expansions += size;
+            if (isClaimed(end)) break;
+            
+            IntList[] parts = expand(frontier, size);
+            size = 0;
+            for (IntList part : parts) {
+                size += part.size;
+            }
+            peakFrontier = Math.max(peakFrontier, size);
+            frontier = new int[size];
+            int offset = 0;
+            for (IntList part : parts) {
+                System.arraycopy(part.items, 0, frontier, offset, part.size);
+                offset += part.size;
+            }
+            
+            if (observer != null) {
+                for (int i = 0; i < size; i++) {
+                    if (frontier[i] != end) {
+                        observer.onVisit(frontier[i]);
+                    }
+                }
+            }
+        }
+        
+        if (!isClaimed(end)) {
+            return metrics.finish(null, -1, expansions, peakFrontier, startNanos);
+        }
+        
+        int length = 0;
+        for (int cell = end; cell != SearchState.NONE; cell = (int) parent.get(cell)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int cell = end; cell != SearchState.NONE; cell = (int) parent.get(cell)) {
+            path[--length] = cell;
+        }
+        if (observer != null) {
+            observer.onPath(path);
+        }
+        return metrics.finish(path, path.length - 1, expansions, peakFrontier, startNanos);
+    }
+    
+    /**
+     * Expands one level, in parallel when it is large enough.
+     * 
+     * @return Newly claimed cells, one list per chunk
+     */
+    private IntList[] expand(int[] frontier, int size) throws InterruptedException {
+        return ParallelChunks.run(pool, parallelism, size, (from, to, next) -> {
+            int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+            for (int i = from; i < to; i++) {
+                int current = frontier[i];
+                int count = grid.getNeighbors(current, neighbors);
+                for (int j = 0; j < count; j++) {
+                    if (claim(neighbors[j], current)) {
+                        next.add(neighbors[j]);
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Marks a cell as reached from a parent unless another task got there
+     * first in this search.
+     */
+    private boolean claim(int cell, int from) {
+        long entry = parent.get(cell);
+        return (int) (entry >>> 32) != generation && parent.compareAndSet(cell, entry, tag(from));
+    }
+    
+    private boolean isClaimed(int cell) {
+        return (int) (parent.get(cell) >>> 32) == generation;
+    }
+    
+    private long tag(int from) {
+        return ((long) generation << 32) | (from & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,88 @@
+package algorithms;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Splits a range of frontier items into chunks that run on an executor,
+ * each writing its output to its own list.
+ */
+final class ParallelChunks {
+    /** Items per task; smaller ranges run on the calling thread */
+    static final int GRAIN = 4096;
+    
+    /**
+     * Work done on one chunk.
+     */
+    interface Body {
+        void run(int from, int to, IntList out);
+    }
+    
+    private ParallelChunks() {
+    }
+    
+    /**
+     * Runs a body over {@code [0, size)} and waits for all chunks.
+     * 
+     * @param pool Executor that runs the chunks
+     * @param parallelism Number of threads the executor can use
+     * @param size Number of items
+     * @param body Work for one chunk
+     * @return Output lists in chunk order
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    static IntList[] run(ExecutorService pool, int parallelism, int size, Body body) throws InterruptedException {
+        int chunks = Math.min((size + GRAIN - 1) / GRAIN, parallelism * 4);
+        if (chunks <= 1) {
+            IntList out = new IntList(Math.min(size, GRAIN));
+            body.run(0, size, out);
+            return new IntList[] { out };
+        }
+        
+        // Chunks register while they run, so a cancelled call can wait for
+        // the ones already started before the caller reuses their inputs
+        Phaser running = new Phaser(1);
+        List<Future<IntList>> futures = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) size * chunk / chunks);
+            int to = (int) ((long) size * (chunk + 1) / chunks);
+            futures.add(pool.submit(() -> {
+                if (running.register() < 0) return null;
+                try {
+                    IntList out = new IntList(Math.min(to - from, GRAIN));
+                    body.run(from, to, out);
+                    return out;
+                } finally {
+                    running.arriveAndDeregister();
+                }
+            }));
+        }
+        
+        IntList[] outputs = new IntList[chunks];
+        try {
+            for (int i = 0; i < chunks; i++) {
+                outputs[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            cancel(futures, running);
+            throw e;
+        } catch (ExecutionException e) {
+            cancel(futures, running);
+            throw new IllegalStateException("Parallel chunk failed", e.getCause());
+        }
+        return outputs;
+    }
+    
+    /**
+     * Cancels the chunks not yet started and waits, ignoring interrupts,
+     * for the ones that have.
+     */
+    private static void cancel(List<Future<IntList>> futures, Phaser running) {
+        for (Future<IntList> future : futures) {
+            future.cancel(true);
+        }
+        // The last chunk to leave terminates the phaser, so none can start
+        // afterwards
+        running.awaitAdvance(running.arriveAndDeregister());
+    }
+}
@@ -7,9 +7,22 @@ public interface Pathfinder {
     /**
      * Finds a path from start to end.
      * 
-     * @return true if path found, false otherwise
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
      * @throws InterruptedException
      */
-    boolean findPath() throws InterruptedException;
+    SearchResult findPath(int start, int end) throws InterruptedException;
+    
+    /**
+     * Sets the observer notified of search progress, or null to run headless.
+     * 
+     * @param observer The observer
+     */
+    void setObserver(SearchObserver observer);
+    
+    /**
+     * Gets the observer notified of search progress, or null if none.
+     */
+    SearchObserver getObserver();
 }
-
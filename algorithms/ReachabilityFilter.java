@@ -0,0 +1,77 @@
+package algorithms;
+
+import model.*;
+
+/**
+ * Wraps a pathfinder and answers queries between different connected
+ * components with "no path" without searching, which would otherwise
+ * flood the whole region reachable from the start.
+ * <p>
+ * Queries from a walled start are passed through, since the pathfinders
+ * search from the start regardless of its wall state.
+ */
+public class ReachabilityFilter implements Pathfinder {
+    private final Grid grid;
+    private final ComponentIndex components;
+    private final Pathfinder delegate;
+    private final SearchMetrics metrics = SearchMetrics.forAlgorithm("ReachabilityFilter");
+    private long rejected;
+    
+    /**
+     * Creates a filtering pathfinder.
+     * 
+     * @param grid The grid searched by the delegate
+     * @param components Component index of the same grid
+     * @param delegate Pathfinder that runs the queries that may have a path
+     */
+    public ReachabilityFilter(Grid grid, ComponentIndex components, Pathfinder delegate) {
+        this.grid = grid;
+        this.components = components;
+        this.delegate = delegate;
+    }
+    
+    /**
+     * Rejects the query if its endpoints are disconnected, otherwise runs
+     * the delegate.
+     * 
+     * @param start Start cell index
+     * @param end End cell index
+     * @return The search result
+     * @throws InterruptedException
+     */
+    @Override
+    public SearchResult findPath(int start, int end) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        if (start != end && !grid.isWall(start) && !components.isConnected(start, end)) {
+            synchronized (this) {
+                rejected++;
+            }
+            return metrics.finish(null, -1, 0, 0, startNanos);
+        }
+        return delegate.findPath(start, end);
+    }
+    
+    @Override
+    public void setObserver(SearchObserver observer) {
+        delegate.setObserver(observer);
+    }
+    
+    @Override
+    public SearchObserver getObserver() {
+        return delegate.getObserver();
+    }
+    
+    /**
+     * Gets the wrapped pathfinder.
+     */
+    public Pathfinder getDelegate() {
+        return delegate;
+    }
+    
+    /**
+     * Gets the number of queries answered without searching.
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+}
@@ -0,0 +1,267 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Space-time reservations for cooperative multi-agent planning: which
+ * agent occupies a cell at a time step.
+ * <p>
+ * Reservations live in an open-addressing hash table keyed by time and
+ * cell packed into one long, with linear probing and no per-entry objects,
+ * so a table with millions of reservations stays a few flat arrays. Agents
+ * that have arrived can be parked, which reserves their cell for every
+ * time from then on with a single entry.
+ * <p>
+ * Lookups of a cell with no reservation at or after the asked time, which
+ * is most of them, are answered from a per-cell record of the latest
+ * reserved time without probing the hash table.
+ */
+public final class ReservationTable {
+    /** Returned when a cell is free */
+    public static final int FREE = -1;
+    
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.5f;
+    
+    /** Keys at even positions and their agents at the odd ones after them */
+    private long[] slots;
+    private int size;
+    
+    /** Parked agents by cell; the value packs the start time and agent */
+    private long[] parkedKeys;
+    private long[] parkedValues;
+    private int parkedSize;
+    
+    /** Latest time step each cell is reserved, or -1 */
+    private final int[] latest;
+    private final IntList touched = new IntList(64);
+    
+    /**
+     * Creates an empty table.
+     * 
+     * @param cells Number of cells of the grid
+     */
+    public ReservationTable(int cells) {
+        latest = new int[cells];
+        Arrays.fill(latest, -1);
+        slots = new long[32];
+        Arrays.fill(slots, EMPTY);
+        parkedKeys = new long[16];
+        parkedValues = new long[16];
+        Arrays.fill(parkedKeys, EMPTY);
+    }
+    
+    /**
+     * Reserves a cell at a time step, replacing any earlier reservation.
+     * 
+     * @param cell Cell index
+     * @param time Time step, not negative
+     * @param agent Agent id, not negative
+     */
+    public void reserve(int cell, int time, int agent) {
+        if (size + 1 > (slots.length >>> 1) * LOAD_FACTOR) {
+            resize();
+        }
+        long key = key(cell, time);
+        int slot = find(slots, key);
+        if (slots[slot] == EMPTY) {
+            slots[slot] = key;
+            size++;
+        }
+        slots[slot + 1] = agent;
+        raise(cell, time);
+    }
+    
+    /**
+     * Reserves a cell for an agent from a time step on, forever.
+     * 
+     * @param cell Cell index
+     * @param time First time step of the reservation
+     * @param agent Agent id, not negative
+     */
+    public void park(int cell, int time, int agent) {
+        if (parkedSize + 1 > parkedKeys.length * LOAD_FACTOR) {
+            resizeParked();
+        }
+        int slot = slot(parkedKeys, cell);
+        if (parkedKeys[slot] == EMPTY) {
+            parkedKeys[slot] = cell;
+            parkedSize++;
+        }
+        parkedValues[slot] = ((long) time << 32) | agent;
+        raise(cell, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Gets the agent occupying a cell at a time step.
+     * 
+     * @param cell Cell index
+     * @param time Time step
+     * @return The agent id, or {@link #FREE}
+     */
+    public int get(int cell, int time) {
+        if (latest[cell] < time) return FREE;
+        int slot = find(slots, key(cell, time));
+        if (slots[slot] != EMPTY) {
+            return (int) slots[slot + 1];
+        }
+        if (parkedSize > 0) {
+            slot = slot(parkedKeys, cell);
+            if (parkedKeys[slot] != EMPTY && (int) (parkedValues[slot] >>> 32) <= time) {
+                return (int) parkedValues[slot];
+            }
+        }
+        return FREE;
+    }
+    
+    /**
+     * Gets the latest time step a cell is reserved.
+     * 
+     * @param cell Cell index
+     * @return The time step, {@link Integer#MAX_VALUE} if an agent is parked
+     *         there, or -1 if the cell is never reserved
+     */
+    public int getLatest(int cell) {
+        return latest[cell];
+    }
+    
+    /**
+     * Gets the time step an agent is parked in a cell from.
+     * 
+     * @param cell Cell index
+     * @return The time step, or {@link Integer#MAX_VALUE} if no agent is
+     *         parked there
+     */
+    public int getParkTime(int cell) {
+        if (latest[cell] != Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        return (int) (parkedValues[slot(parkedKeys, cell)] >>> 32);
+    }
+    
+    /**
+     * Checks whether an agent may be in a cell at a time step.
+     * 
+     * @param cell Cell index
+     * @param time Time step
+     * @param agent The agent asking
+     */
+    public boolean isFree(int cell, int time, int agent) {
+        int holder = get(cell, time);
+        return holder == FREE || holder == agent;
+    }
+    
+    /**
+     * Checks whether an agent may move between two cells from one time step
+     * to the next: the target must be free on arrival, and no other agent
+     * may be crossing the same edge the other way.
+     * 
+     * @param from Cell at time {@code time}
+     * @param to Cell at time {@code time + 1}
+     * @param time Departure time step
+     * @param agent The agent moving
+     */
+    public boolean canMove(int from, int to, int time, int agent) {
+        if (!isFree(to, time + 1, agent)) return false;
+        if (from == to) return true;
+        int oncoming = get(to, time);
+        return oncoming == FREE || oncoming == agent || get(from, time + 1) != oncoming;
+    }
+    
+    /**
+     * Gets the number of timed reservations, not counting parked agents.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Removes every reservation, keeping the allocated capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < touched.size; i++) {
+            latest[touched.items[i]] = -1;
+        }
+        touched.clear();
+        if (size > 0) {
+            Arrays.fill(slots, EMPTY);
+            size = 0;
+        }
+        if (parkedSize > 0) {
+            Arrays.fill(parkedKeys, EMPTY);
+            parkedSize = 0;
+        }
+    }
+    
+    private void raise(int cell, int time) {
+        if (latest[cell] == -1) {
+            touched.add(cell);
+        }
+        latest[cell] = Math.max(latest[cell], time);
+    }
+    
+    private static long key(int cell, int time) {
+        return ((long) time << 32) | (cell & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Mixes every bit of a key into the low bits, which pick the slot.
+     */
+    static int hash(long key) {
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (key ^ (key >>> 33));
+    }
+    
+    /**
+     * Finds the position of a key in the interleaved table, or the empty
+     * position where it belongs. Each probe reads the key and its agent
+     * from the same cache line.
+     */
+    private static int find(long[] slots, long key) {
+        int mask = slots.length - 2;
+        int slot = (hash(key) << 1) & mask;
+        while (slots[slot] != EMPTY && slots[slot] != key) {
+            slot = (slot + 2) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * Finds the slot holding a key, or the empty slot where it belongs.
+     */
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void resize() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        Arrays.fill(slots, EMPTY);
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != EMPTY) {
+                int slot = find(slots, old[i]);
+                slots[slot] = old[i];
+                slots[slot + 1] = old[i + 1];
+            }
+        }
+    }
+    
+    private void resizeParked() {
+        long[] oldKeys = parkedKeys;
+        long[] oldValues = parkedValues;
+        parkedKeys = new long[oldKeys.length * 2];
+        parkedValues = new long[oldKeys.length * 2];
+        Arrays.fill(parkedKeys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(parkedKeys, oldKeys[i]);
+                parkedKeys[slot] = oldKeys[i];
+                parkedValues[slot] = oldValues[i];
+            }
+        }
+    }
+}
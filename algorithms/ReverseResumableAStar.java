@@ -0,0 +1,177 @@
+package algorithms;
+
+import model.*;
+import java.util.Arrays;
+
+/**
+ * Exact step distances to one goal, found by a reverse A* that starts at
+ * the goal, heads for the first cell asked about, and resumes whenever a
+ * cell it has not settled yet is asked about (RRA*). Cells it never needs
+ * are never searched.
+ * <p>
+ * Neighboring cells are at most one step apart, so a settled cell only
+ * keeps its distance modulo 3 and a neighbor's distance follows from the
+ * cell's own. The codes take two bits per cell in 32x32 pages allocated
+ * as the search reaches them, so memory follows the area searched rather
+ * than the size of the map. The full distance of a cell is found by
+ * walking down to the goal. Every move takes one step and moves are
+ * assumed to be symmetric, as they are on a grid map; terrain costs are
+ * ignored. Cells where a {@link ReservationTable} parks an agent may count
+ * as walls too. The map must not change while the distances are in use.
+ */
+final class ReverseResumableAStar {
+    private static final int UNSETTLED = 3;
+    
+    private final GridMap map;
+    private final int goal;
+    
+    /** Cell the reverse search heads for */
+    private final int target;
+    
+    /** Parked agents that count as walls, or null */
+    private final ReservationTable parked;
+    
+    /** Pages of distance codes, one word per page row, null if untouched */
+    private final long[][] pages;
+    private final int cols;
+    private final int pageCols;
+    private final int[] neighbors = new int[GridMap.MAX_NEIGHBORS];
+    
+    // Cells queued by f, the distance plus steps to the target, in a ring
+    // of buckets, as a step changes f by two at most. Each bucket is a
+    // stack, so deeper cells come first among equals. A cell may be queued
+    // several times and only its first pop counts.
+    private final IntList[] buckets = new IntList[4];
+    private int f;
+    private int queued;
+    
+    /**
+     * Starts a search from a goal.
+     * 
+     * @param map The grid
+     * @param goal The goal cell
+     * @param target Cell the first distance will be asked for
+     */
+    ReverseResumableAStar(GridMap map, int goal, int target) {
+        this(map, goal, target, null);
+    }
+    
+    /**
+     * Starts a search from a goal that does not pass parked agents, other
+     * than one on the target.
+     * 
+     * @param map The grid
+     * @param goal The goal cell
+     * @param target Cell the first distance will be asked for
+     * @param parked Table whose parked agents count as walls, or null
+     */
+    ReverseResumableAStar(GridMap map, int goal, int target, ReservationTable parked) {
+        this.map = map;
+        this.goal = goal;
+        this.target = target;
+        this.parked = parked;
+        this.cols = map.getCols();
+        this.pageCols = (cols + 31) >>> 5;
+        this.pages = new long[((map.getRows() + 31) >>> 5) * pageCols][];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new IntList(64);
+        }
+        f = map.steps(goal, target);
+        push(goal, 0);
+    }
+    
+    /**
+     * Gets the number of steps from a cell to the goal.
+     * 
+     * @return The distance, or -1 if the goal cannot be reached
+     */
+    int distance(int cell) {
+        if (!settle(cell)) return -1;
+        int distance = 0;
+        for (int current = cell; current != goal; distance++) {
+            // The settled neighbor one step closer has the code one lower
+            int closer = (code(current) + 2) % 3;
+            int count = map.getNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                if (code(neighbors[i]) == closer) {
+                    current = neighbors[i];
+                    break;
+                }
+            }
+        }
+        return distance;
+    }
+    
+    /**
+     * Gets the distance of a cell from the distance of a neighbor.
+     * 
+     * @param from A cell the goal can be reached from
+     * @param distance Distance of that cell
+     * @param to The cell itself or one of its neighbors
+     * @return The distance of the neighbor
+     */
+    int distance(int from, int distance, int to) {
+        settle(to);
+        int delta = (code(to) - code(from) + 3) % 3;
+        return delta == 2 ? distance - 1 : distance + delta;
+    }
+    
+    /**
+     * Runs the reverse search until a cell is settled.
+     * 
+     * @return false if the goal cannot be reached from the cell
+     */
+    private boolean settle(int cell) {
+        while (code(cell) == UNSETTLED) {
+            if (queued == 0) return false;
+            IntList bucket = buckets[f & 3];
+            if (bucket.size == 0) {
+                f++;
+                continue;
+            }
+            int current = bucket.items[--bucket.size];
+            queued--;
+            if (code(current) != UNSETTLED) continue;
+            int g = f - map.steps(current, target);
+            setCode(current, g % 3);
+            int count = map.getNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                int next = neighbors[i];
+                if (code(next) == UNSETTLED && (parked == null || next == target
+                        || parked.getLatest(next) != Integer.MAX_VALUE)) {
+                    push(next, g + 1);
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Gets a cell's distance modulo 3, or UNSETTLED.
+     */
+    private int code(int cell) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        long[] page = pages[(row >>> 5) * pageCols + (col >>> 5)];
+        return page == null ? UNSETTLED : (int) (page[row & 31] >>> ((col & 31) << 1)) & 3;
+    }
+    
+    private void setCode(int cell, int code) {
+        int row = cell / cols;
+        int col = cell - row * cols;
+        int index = (row >>> 5) * pageCols + (col >>> 5);
+        long[] page = pages[index];
+        if (page == null) {
+            page = new long[32];
+            Arrays.fill(page, -1L);
+            pages[index] = page;
+        }
+        int shift = (col & 31) << 1;
+        page[row & 31] = page[row & 31] & ~(3L << shift) | ((long) code << shift);
+    }
+    
+    private void push(int cell, int g) {
+        buckets[(g + map.steps(cell, target)) & 3].add(cell);
+        queued++;
+    }
+}
@@ -0,0 +1,309 @@
+package algorithms;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+/**
+ * Aggregated statistics of every search run by one algorithm, published
+ * as an MXBean named {@code pathfinding:type=SearchMetrics,algorithm=<name>}.
+ * <p>
+ * Recording a search costs a handful of uncontended adder and array
+ * increments, so metrics stay on for every search. Histograms use
+ * power-of-two buckets, so percentiles are accurate to within a factor of
+ * two.
+ */
+public final class SearchMetrics implements SearchMetricsMXBean {
+    private static final int BUCKETS = 64;
+    private static final Map<String, SearchMetrics> ALGORITHMS = new ConcurrentHashMap<>();
+    
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder found = new LongAdder();
+    private final LongAdder expansions = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final Tracked generated = new Tracked();
+    private final Tracked pushes = new Tracked();
+    private final Tracked pops = new Tracked();
+    private final Tracked pathLength = new Tracked();
+    private final Tracked cost = new Tracked();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxPeakFrontier = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray expansionCounts = new AtomicLongArray(BUCKETS);
+    
+    /**
+     * Sum of a counter over the searches that track it, which report it
+     * as at least 0, and the number of those searches.
+     */
+    private static final class Tracked {
+        final LongAdder sum = new LongAdder();
+        final LongAdder count = new LongAdder();
+        
+        void add(long value) {
+            if (value >= 0) {
+                sum.add(value);
+                count.increment();
+            }
+        }
+        
+        double mean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+        
+        void reset() {
+            sum.reset();
+            count.reset();
+        }
+    }
+    
+    private SearchMetrics() {
+    }
+    
+    /**
+     * Gets the metrics of an algorithm, creating and registering them on
+     * first use.
+     * 
+     * @param algorithm Algorithm name used in the MXBean name
+     */
+    public static SearchMetrics forAlgorithm(String algorithm) {
+        return ALGORITHMS.computeIfAbsent(algorithm, SearchMetrics::register);
+    }
+    
+    /**
+     * Gets the metrics of every algorithm that has been used, by name.
+     */
+    public static Map<String, SearchMetrics> all() {
+        return Collections.unmodifiableMap(new TreeMap<>(ALGORITHMS));
+    }
+    
+    private static SearchMetrics register(String algorithm) {
+        SearchMetrics metrics = new SearchMetrics();
+        try {
+            ObjectName name = new ObjectName("pathfinding:type=SearchMetrics,algorithm=" + ObjectName.quote(algorithm));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException | SecurityException e) {
+            // Metrics still accumulate when JMX is unavailable
+        }
+        return metrics;
+    }
+    
+    /**
+     * Adds a finished search.
+     * 
+     * @param stats Statistics of the search
+     */
+    public void record(SearchStats stats) {
+        searches.increment();
+        if (stats.isFound()) {
+            found.increment();
+        }
+        expansions.add(stats.getExpansions());
+        expansionCounts.incrementAndGet(bucket(stats.getExpansions()));
+        generated.add(stats.getGenerated());
+        pushes.add(stats.getPushes());
+        pops.add(stats.getPops());
+        pathLength.add(stats.getPathLength());
+        cost.add(stats.getCost());
+        if (stats.getPeakFrontier() > 0) {
+            maxPeakFrontier.accumulate(stats.getPeakFrontier());
+        }
+        if (stats.getNanos() >= 0) {
+            nanos.add(stats.getNanos());
+            maxNanos.accumulate(stats.getNanos());
+            latency.incrementAndGet(bucket(stats.getNanos()));
+        }
+    }
+    
+    /**
+     * Records a search that only tracks expansions and its largest open
+     * list, and builds its result.
+     * 
+     * @param path Cell indices from start to end, or null if no path was found
+     * @param cost Path cost
+     * @param expansions Number of expanded nodes
+     * @param peakFrontier Largest open list size, or -1 if not tracked
+     * @param startNanos {@link System#nanoTime()} when the search started
+     */
+    SearchResult finish(int[] path, int cost, int expansions, int peakFrontier, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        if (path == null) {
+            SearchStats stats = new SearchStats(expansions, -1, -1, -1, peakFrontier, -1, -1, nanos);
+            record(stats);
+            return SearchResult.notFound(stats);
+        }
+        SearchStats stats = new SearchStats(expansions, -1, -1, -1, peakFrontier, path.length - 1, cost, nanos);
+        record(stats);
+        return new SearchResult(path, cost, stats);
+    }
+    
+    /**
+     * Gets the histogram bucket of a value.
+     */
+    private static int bucket(long value) {
+        return value <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+    
+    @Override
+    public long getSearches() {
+        return searches.sum();
+    }
+    
+    @Override
+    public long getFound() {
+        return found.sum();
+    }
+    
+    @Override
+    public long getExpansions() {
+        return expansions.sum();
+    }
+    
+    @Override
+    public double getMeanExpansions() {
+        long count = searches.sum();
+        return count == 0 ? 0 : (double) expansions.sum() / count;
+    }
+    
+    @Override
+    public long getGenerated() {
+        return generated.sum.sum();
+    }
+    
+    @Override
+    public double getMeanGenerated() {
+        return generated.mean();
+    }
+    
+    @Override
+    public long getPushes() {
+        return pushes.sum.sum();
+    }
+    
+    @Override
+    public double getMeanPushes() {
+        return pushes.mean();
+    }
+    
+    @Override
+    public long getPops() {
+        return pops.sum.sum();
+    }
+    
+    @Override
+    public double getMeanPops() {
+        return pops.mean();
+    }
+    
+    @Override
+    public double getMeanPathLength() {
+        return pathLength.mean();
+    }
+    
+    @Override
+    public double getMeanCost() {
+        return cost.mean();
+    }
+    
+    @Override
+    public long getMaxPeakFrontier() {
+        return maxPeakFrontier.get();
+    }
+    
+    @Override
+    public double getMeanNanos() {
+        long count = total(latency);
+        return count == 0 ? 0 : (double) nanos.sum() / count;
+    }
+    
+    @Override
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+    
+    @Override
+    public long getP50Nanos() {
+        return percentile(latency, 0.5);
+    }
+    
+    @Override
+    public long getP99Nanos() {
+        return percentile(latency, 0.99);
+    }
+    
+    @Override
+    public long[] getLatencyHistogram() {
+        return snapshot(latency);
+    }
+    
+    @Override
+    public long[] getExpansionHistogram() {
+        return snapshot(expansionCounts);
+    }
+    
+    /**
+     * Clears all counters. Searches finishing during the reset may be
+     * partly counted.
+     */
+    @Override
+    public void reset() {
+        searches.reset();
+        found.reset();
+        expansions.reset();
+        nanos.reset();
+        generated.reset();
+        pushes.reset();
+        pops.reset();
+        pathLength.reset();
+        cost.reset();
+        maxNanos.reset();
+        maxPeakFrontier.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            latency.set(i, 0);
+            expansionCounts.set(i, 0);
+        }
+    }
+    
+    private static long[] snapshot(AtomicLongArray histogram) {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+    
+    private static long total(AtomicLongArray histogram) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += histogram.get(i);
+        }
+        return count;
+    }
+    
+    /**
+     * Gets the upper bound of the bucket holding a quantile, or 0 if
+     * nothing was recorded.
+     */
+    private static long percentile(AtomicLongArray histogram, double quantile) {
+        long[] counts = snapshot(histogram);
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return b == 0 ? 0 : b >= 63 ? Long.MAX_VALUE : (1L << b) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,116 @@
+package algorithms;
+
+/**
+ * JMX view of the searches run by one algorithm. Histograms have 64
+ * buckets: bucket 0 counts values of 0 and bucket {@code b} counts values
+ * from {@code 2^(b-1)} to {@code 2^b - 1}.
+ */
+public interface SearchMetricsMXBean {
+    /**
+     * Gets the number of completed searches.
+     */
+    long getSearches();
+    
+    /**
+     * Gets the number of searches that found a path.
+     */
+    long getFound();
+    
+    /**
+     * Gets the total number of expanded nodes.
+     */
+    long getExpansions();
+    
+    /**
+     * Gets the mean number of expanded nodes per search.
+     */
+    double getMeanExpansions();
+    
+    /**
+     * Gets the total number of neighbors generated while expanding, over
+     * the searches that track them.
+     */
+    long getGenerated();
+    
+    /**
+     * Gets the mean number of neighbors generated per search that tracks
+     * them.
+     */
+    double getMeanGenerated();
+    
+    /**
+     * Gets the total number of entries added to the open list, over the
+     * searches that track them.
+     */
+    long getPushes();
+    
+    /**
+     * Gets the mean number of entries added to the open list per search
+     * that tracks them.
+     */
+    double getMeanPushes();
+    
+    /**
+     * Gets the total number of entries taken off the open list, over the
+     * searches that track them.
+     */
+    long getPops();
+    
+    /**
+     * Gets the mean number of entries taken off the open list per search
+     * that tracks them.
+     */
+    double getMeanPops();
+    
+    /**
+     * Gets the mean number of steps of the paths found.
+     */
+    double getMeanPathLength();
+    
+    /**
+     * Gets the mean cost of the paths found.
+     */
+    double getMeanCost();
+    
+    /**
+     * Gets the largest open list size seen in any search.
+     */
+    long getMaxPeakFrontier();
+    
+    /**
+     * Gets the mean search duration in nanoseconds.
+     */
+    double getMeanNanos();
+    
+    /**
+     * Gets the longest search duration in nanoseconds.
+     */
+    long getMaxNanos();
+    
+    /**
+     * Gets the upper bound of the histogram bucket holding the median
+     * search duration.
+     */
+    long getP50Nanos();
+    
+    /**
+     * Gets the upper bound of the histogram bucket holding the 99th
+     * percentile search duration.
+     */
+    long getP99Nanos();
+    
+    /**
+     * Gets the search duration histogram in nanoseconds.
+     */
+    long[] getLatencyHistogram();
+    
+    /**
+     * Gets the histogram of expanded nodes per search.
+     */
+    long[] getExpansionHistogram();
+    
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
@@ -0,0 +1,30 @@
+package algorithms;
+
+/**
+ * Receives progress callbacks from a running search. Searches without an
+ * observer run at full speed; visualizations plug in through this interface.
+ */
+public interface SearchObserver {
+    /**
+     * Called when a cell other than the start is expanded.
+     * 
+     * @param index Cell index
+     * @throws InterruptedException if the observer wants the search to stop
+     */
+    void onVisit(int index) throws InterruptedException;
+    
+    /**
+     * Called when a cell is added to the frontier or its priority improves.
+     * 
+     * @param index Cell index
+     */
+    default void onPush(int index) {
+    }
+    
+    /**
+     * Called once when a path has been found.
+     * 
+     * @param path Cell indices from start to end
+     */
+    void onPath(int[] path);
+}
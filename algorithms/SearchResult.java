@@ -0,0 +1,91 @@
+package algorithms;
+
+/**
+ * Outcome of a single search.
+ */
+public class SearchResult {
+    private static final int[] NO_PATH = new int[0];
+    
+    private final int[] path;
+    private final int cost;
+    private final int expansions;
+    private final SearchStats stats;
+    
+    /**
+     * Creates a search result without detailed statistics.
+     * 
+     * @param path Cell indices from start to end, empty if no path exists
+     * @param cost Total path cost
+     * @param expansions Number of expanded nodes
+     */
+    public SearchResult(int[] path, int cost, int expansions) {
+        this(path, cost, SearchStats.basic(path, cost, expansions, -1));
+    }
+    
+    /**
+     * Creates a search result.
+     * 
+     * @param path Cell indices from start to end, empty if no path exists
+     * @param cost Total path cost
+     * @param stats Counters recorded by the search
+     */
+    public SearchResult(int[] path, int cost, SearchStats stats) {
+        this.path = path;
+        this.cost = cost;
+        this.expansions = stats.getExpansions();
+        this.stats = stats;
+    }
+    
+    /**
+     * Creates a result for a search that found no path.
+     * 
+     * @param expansions Number of expanded nodes
+     */
+    public static SearchResult notFound(int expansions) {
+        return new SearchResult(NO_PATH, -1, expansions);
+    }
+    
+    /**
+     * Creates a result for a search that found no path.
+     * 
+     * @param stats Counters recorded by the search
+     */
+    public static SearchResult notFound(SearchStats stats) {
+        return new SearchResult(NO_PATH, -1, stats);
+    }
+    
+    /**
+     * Checks whether a path was found.
+     */
+    public boolean isFound() {
+        return path.length > 0;
+    }
+    
+    /**
+     * Gets the path as cell indices from start to end.
+     */
+    public int[] getPath() {
+        return path;
+    }
+    
+    /**
+     * Gets the path cost, or -1 if no path was found.
+     */
+    public int getCost() {
+        return cost;
+    }
+    
+    /**
+     * Gets the number of expanded nodes.
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+    
+    /**
+     * Gets the counters recorded by the search.
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+}
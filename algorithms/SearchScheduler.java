@@ -0,0 +1,150 @@
+package algorithms;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.*;
+
+/**
+ * Runs searches on a bounded pool of daemon threads.
+ * <p>
+ * Searches wait in a bounded queue; once it is full, {@link #submit}
+ * throws {@link RejectedExecutionException} instead of queueing more work
+ * than the pool can drain. Each search may have a deadline, measured from
+ * submission, after which it is cancelled. Cancellation interrupts the
+ * worker, and searches check for it every
+ * {@link Cancellation#CHECK_INTERVAL} expansions.
+ * <p>
+ * Searches on the same pathfinder run one at a time, since pathfinders
+ * reuse their scratch state between searches.
+ */
+public class SearchScheduler implements AutoCloseable {
+    private static final AtomicInteger POOLS = new AtomicInteger();
+    
+    private final ThreadPoolExecutor pool;
+    private final ScheduledThreadPoolExecutor timer;
+    
+    /** One lock per pathfinder, dropped once the pathfinder is unreachable */
+    private final Map<Pathfinder, Lock> locks = Collections.synchronizedMap(new WeakHashMap<>());
+    
+    /**
+     * Creates a scheduler with one thread per processor and room for 64
+     * queued searches.
+     */
+    public SearchScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), 64);
+    }
+    
+    /**
+     * Creates a scheduler.
+     * 
+     * @param threads Number of worker threads
+     * @param queueCapacity Number of searches that may wait for a worker
+     */
+    public SearchScheduler(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads and queue capacity must be positive");
+        }
+        int id = POOLS.incrementAndGet();
+        AtomicInteger workers = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> daemon(task, "search-" + id + "-" + workers.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        timer = new ScheduledThreadPoolExecutor(1, task -> daemon(task, "search-" + id + "-deadlines"));
+        timer.setRemoveOnCancelPolicy(true);
+    }
+    
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    /**
+     * Queues a search without a deadline.
+     * 
+     * @param pathfinder The pathfinder to run
+     * @param start Start cell index
+     * @param end End cell index
+     * @throws RejectedExecutionException if the queue is full or the
+     *         scheduler is closed
+     */
+    public SearchTask submit(Pathfinder pathfinder, int start, int end) {
+        return submit(pathfinder, start, end, null, 0, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Queues a search.
+     * 
+     * @param pathfinder The pathfinder to run
+     * @param start Start cell index
+     * @param end End cell index
+     * @param observer Observer installed on the pathfinder for this search
+     *        only, or null to leave the pathfinder's observer alone
+     * @param timeout Time from now after which the search is cancelled
+     *        with a {@link TimeoutException}, or 0 for no deadline
+     * @param unit Unit of the timeout
+     * @throws RejectedExecutionException if the queue is full or the
+     *         scheduler is closed
+     */
+    public SearchTask submit(Pathfinder pathfinder, int start, int end, SearchObserver observer,
+                             long timeout, TimeUnit unit) {
+        Lock lock = locks.computeIfAbsent(unwrap(pathfinder), p -> new ReentrantLock());
+        SearchTask task = new SearchTask(pathfinder, lock, observer, start, end);
+        if (timeout > 0) {
+            task.setDeadline(timer.schedule(
+                    () -> task.stop(new TimeoutException("Search exceeded " + timeout + " " + unit)),
+                    timeout, unit));
+        }
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.reject(e);
+            throw e;
+        }
+        return task;
+    }
+    
+    /**
+     * Gets the pathfinder holding the search state behind any wrappers, so
+     * wrappers of one pathfinder share its lock.
+     */
+    private static Pathfinder unwrap(Pathfinder pathfinder) {
+        while (true) {
+            if (pathfinder instanceof ReachabilityFilter) {
+                pathfinder = ((ReachabilityFilter) pathfinder).getDelegate();
+            } else if (pathfinder instanceof CachingPathfinder) {
+                pathfinder = ((CachingPathfinder) pathfinder).getDelegate();
+            } else {
+                return pathfinder;
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of searches waiting for a worker.
+     */
+    public int getQueued() {
+        return pool.getQueue().size();
+    }
+    
+    /**
+     * Gets the number of searches currently running.
+     */
+    public int getActive() {
+        return pool.getActiveCount();
+    }
+    
+    /**
+     * Stops accepting searches and cancels the queued and running ones.
+     */
+    @Override
+    public void close() {
+        for (Runnable task : pool.shutdownNow()) {
+            ((SearchTask) task).cancel();
+            task.run();
+        }
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,147 @@
+package algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Per-search scratch space kept as flat primitive arrays indexed by
+ * {@code row * cols + col}, reused across searches on the same grid.
+ * <p>
+ * Starting a search does not clear the arrays. Each search gets a new
+ * generation number, and a cell's costs and parent only count if its stamp
+ * belongs to the current generation. A stamp equal to the generation means
+ * the cell has been reached; one past it means the cell is also closed.
+ * Resetting is O(1) except once every billion searches, when the stamps
+ * wrap around and are zeroed.
+ */
+final class SearchState {
+    /** Sentinel for cells without a known distance or parent */
+    static final int NONE = -1;
+    
+    /** Cost reported for cells not reached by the current search */
+    static final int INFINITY = Integer.MAX_VALUE;
+    
+    /** Distance from start */
+    final int[] gCost;
+    
+    /** Heuristic distance to end */
+    final int[] hCost;
+    
+    /** Parent index for path reconstruction */
+    final int[] parent;
+    
+    /** Generation in which each cell was last reached or closed */
+    private final int[] stamp;
+    
+    /** Current search generation, always odd */
+    private int generation = -1;
+    
+    /** Work list for BFS/DFS, allocated on first use */
+    private int[] queue;
+    
+    /** Open list for A* and Dijkstra, allocated on first use */
+    private IndexedHeap heap;
+    
+    /**
+     * Creates scratch space for a grid of the given size.
+     * 
+     * @param size Number of cells
+     */
+    SearchState(int size) {
+        gCost = new int[size];
+        hCost = new int[size];
+        parent = new int[size];
+        stamp = new int[size];
+    }
+    
+    /**
+     * Prepares the state for a new search in O(1).
+     */
+    void reset() {
+        if (generation >= Integer.MAX_VALUE - 2) {
+            Arrays.fill(stamp, 0);
+            generation = -1;
+        }
+        generation += 2;
+        if (heap != null) {
+            heap.clear();
+        }
+    }
+    
+    /**
+     * Records a cost and parent for a cell, marking it reached.
+     */
+    void reach(int index, int cost, int from) {
+        if (stamp[index] < generation) {
+            stamp[index] = generation;
+        }
+        gCost[index] = cost;
+        parent[index] = from;
+    }
+    
+    /**
+     * Checks whether the current search has reached a cell.
+     */
+    boolean isReached(int index) {
+        return stamp[index] >= generation;
+    }
+    
+    /**
+     * Gets the cost of a cell, or INFINITY if the current search has not
+     * reached it.
+     */
+    int getCost(int index) {
+        return stamp[index] >= generation ? gCost[index] : INFINITY;
+    }
+    
+    /**
+     * Marks a reached cell as expanded.
+     */
+    void close(int index) {
+        stamp[index] = generation + 1;
+    }
+    
+    /**
+     * Checks whether the current search has expanded a cell.
+     */
+    boolean isClosed(int index) {
+        return stamp[index] == generation + 1;
+    }
+    
+    /**
+     * Gets an index buffer large enough to hold every cell once.
+     */
+    int[] queue() {
+        if (queue == null) {
+            queue = new int[gCost.length];
+        }
+        return queue;
+    }
+    
+    /**
+     * Gets the open-list heap sized for this grid.
+     */
+    IndexedHeap heap() {
+        if (heap == null) {
+            heap = new IndexedHeap(gCost.length);
+        }
+        return heap;
+    }
+    
+    /**
+     * Follows parent pointers back from a cell to the search root.
+     * 
+     * @param end The last cell of the path
+     * @return Cell indices from the root to end
+     */
+    int[] pathTo(int end) {
+        int length = 0;
+        for (int current = end; current != NONE; current = parent[current]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int current = end; current != NONE; current = parent[current]) {
+            path[--length] = current;
+        }
+        return path;
+    }
+}
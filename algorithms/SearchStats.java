@@ -0,0 +1,122 @@
+package algorithms;
+
+/**
+ * Counters recorded by a single search. Counters an algorithm does not
+ * track are -1.
+ */
+public final class SearchStats {
+    private final int expansions;
+    private final long generated;
+    private final long pushes;
+    private final long pops;
+    private final int peakFrontier;
+    private final int pathLength;
+    private final int cost;
+    private final long nanos;
+    
+    /**
+     * Creates search statistics.
+     * 
+     * @param expansions Number of expanded nodes
+     * @param generated Number of neighbors generated while expanding
+     * @param pushes Number of entries added to the open list
+     * @param pops Number of entries taken off the open list, stale ones included
+     * @param peakFrontier Largest open list size
+     * @param pathLength Number of steps in the path, or -1 if none was found
+     * @param cost Path cost, or -1 if no path was found
+     * @param nanos Wall-clock duration of the search
+     */
+    public SearchStats(int expansions, long generated, long pushes, long pops, int peakFrontier,
+                       int pathLength, int cost, long nanos) {
+        this.expansions = expansions;
+        this.generated = generated;
+        this.pushes = pushes;
+        this.pops = pops;
+        this.peakFrontier = peakFrontier;
+        this.pathLength = pathLength;
+        this.cost = cost;
+        this.nanos = nanos;
+    }
+    
+    /**
+     * Creates statistics holding only what a result itself knows.
+     * 
+     * @param path Cell indices from start to end, empty if no path exists
+     * @param cost Path cost
+     * @param expansions Number of expanded nodes
+     * @param nanos Wall-clock duration of the search, or -1 if not measured
+     */
+    static SearchStats basic(int[] path, int cost, int expansions, long nanos) {
+        return new SearchStats(expansions, -1, -1, -1, -1, path.length - 1, path.length > 0 ? cost : -1, nanos);
+    }
+    
+    /**
+     * Checks whether the search found a path.
+     */
+    public boolean isFound() {
+        return pathLength >= 0;
+    }
+    
+    /**
+     * Gets the number of expanded nodes.
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+    
+    /**
+     * Gets the number of neighbors generated while expanding.
+     */
+    public long getGenerated() {
+        return generated;
+    }
+    
+    /**
+     * Gets the number of entries added to the open list.
+     */
+    public long getPushes() {
+        return pushes;
+    }
+    
+    /**
+     * Gets the number of entries taken off the open list.
+     */
+    public long getPops() {
+        return pops;
+    }
+    
+    /**
+     * Gets the largest open list size during the search.
+     */
+    public int getPeakFrontier() {
+        return peakFrontier;
+    }
+    
+    /**
+     * Gets the number of steps in the path, or -1 if no path was found.
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+    
+    /**
+     * Gets the path cost, or -1 if no path was found.
+     */
+    public int getCost() {
+        return cost;
+    }
+    
+    /**
+     * Gets the wall-clock duration of the search in nanoseconds, or -1 if
+     * not measured.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "expanded=" + expansions + " generated=" + generated + " pushes=" + pushes + " pops=" + pops
+                + " peakFrontier=" + peakFrontier + " pathLength=" + pathLength + " cost=" + cost + " nanos=" + nanos;
+    }
+}
@@ -0,0 +1,137 @@
+package algorithms;
+
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A search submitted to a {@link SearchScheduler}.
+ * <p>
+ * {@link #result()} completes with the search result, or exceptionally
+ * with a {@link CancellationException} when cancelled, a
+ * {@link TimeoutException} when the deadline passes, or whatever the
+ * pathfinder threw. It may complete before the search has actually
+ * stopped; {@link #stopped()} completes once the worker no longer uses
+ * the pathfinder.
+ */
+public final class SearchTask implements Runnable {
+    private final Pathfinder pathfinder;
+    private final Lock lock;
+    private final SearchObserver observer;
+    private final int start;
+    private final int end;
+    private final CompletableFuture<SearchResult> result = new CompletableFuture<>();
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+    
+    /** Thread running the search, guarded by this */
+    private Thread runner;
+    private Future<?> deadline;
+    
+    SearchTask(Pathfinder pathfinder, Lock lock, SearchObserver observer, int start, int end) {
+        this.pathfinder = pathfinder;
+        this.lock = lock;
+        this.observer = observer;
+        this.start = start;
+        this.end = end;
+    }
+    
+    /**
+     * Gets the future result of the search.
+     */
+    public CompletableFuture<SearchResult> result() {
+        return result;
+    }
+    
+    /**
+     * Gets a future that completes once the search has stopped running,
+     * whether it finished, failed, was cancelled or never started.
+     */
+    public CompletableFuture<Void> stopped() {
+        return stopped;
+    }
+    
+    /**
+     * Cancels the search. A queued search never starts; a running one
+     * stops at its next cancellation check.
+     * 
+     * @return true if the search had not completed yet
+     */
+    public boolean cancel() {
+        return stop(new CancellationException("Search cancelled"));
+    }
+    
+    /**
+     * Completes the result exceptionally and interrupts the worker, if
+     * any.
+     */
+    boolean stop(Throwable reason) {
+        if (!result.completeExceptionally(reason)) {
+            return false;
+        }
+        synchronized (this) {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+        return true;
+    }
+    
+    synchronized void setDeadline(Future<?> deadline) {
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Completes a task that could not be queued.
+     */
+    void reject(RejectedExecutionException e) {
+        synchronized (this) {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+        }
+        result.completeExceptionally(e);
+        stopped.complete(null);
+    }
+    
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (result.isDone()) {
+                stopped.complete(null);
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+        try {
+            // Pathfinders keep scratch state, so searches sharing one run
+            // one at a time
+            lock.lockInterruptibly();
+            SearchObserver previous = pathfinder.getObserver();
+            try {
+                if (observer != null) {
+                    pathfinder.setObserver(observer);
+                }
+                result.complete(pathfinder.findPath(start, end));
+            } finally {
+                if (observer != null) {
+                    pathfinder.setObserver(previous);
+                }
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            result.completeExceptionally(new CancellationException("Search cancelled"));
+        } catch (RuntimeException | Error e) {
+            result.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                runner = null;
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+            }
+            // No interrupt can arrive once the runner is cleared, so this
+            // leaves the pool thread clean for the next task
+            Thread.interrupted();
+            stopped.complete(null);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package algorithms;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Records the events of a search into primitive arrays so it can run at
+ * full speed and be played back later at any pace.
+ * <p>
+ * Each event is one byte of type and one int of cell index. A found path
+ * is recorded as one {@link #PATH} event per cell. Traces can be saved to
+ * and loaded from a small binary file.
+ */
+public final class SearchTrace implements SearchObserver {
+    /** A cell was expanded */
+    public static final byte VISIT = 0;
+    
+    /** A cell was added to the frontier */
+    public static final byte PUSH = 1;
+    
+    /** A cell is on the found path */
+    public static final byte PATH = 2;
+    
+    private static final int MAGIC = 0x50465452;
+    private static final short VERSION = 1;
+    
+    /** Bytes before the events: magic, version, rows, cols and size */
+    private static final int HEADER_BYTES = 18;
+    
+    private final int rows, cols;
+    private byte[] types = new byte[256];
+    private int[] cells = new int[256];
+    private int size;
+    
+    /**
+     * Creates an empty trace for a grid.
+     * 
+     * @param rows Number of grid rows
+     * @param cols Number of grid columns
+     */
+    public SearchTrace(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+    
+    @Override
+    public void onVisit(int index) {
+        add(VISIT, index);
+    }
+    
+    @Override
+    public void onPush(int index) {
+        add(PUSH, index);
+    }
+    
+    @Override
+    public void onPath(int[] path) {
+        for (int index : path) {
+            add(PATH, index);
+        }
+    }
+    
+    private void add(byte type, int index) {
+        if (size == cells.length) {
+            types = Arrays.copyOf(types, size * 2);
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        types[size] = type;
+        cells[size++] = index;
+    }
+    
+    /**
+     * Gets the number of recorded events.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the type of an event.
+     */
+    public byte getType(int event) {
+        return types[event];
+    }
+    
+    /**
+     * Gets the cell index of an event.
+     */
+    public int getCell(int event) {
+        return cells[event];
+    }
+    
+    /**
+     * Gets the number of rows of the traced grid.
+     */
+    public int getRows() {
+        return rows;
+    }
+    
+    /**
+     * Gets the number of columns of the traced grid.
+     */
+    public int getCols() {
+        return cols;
+    }
+    
+    /**
+     * Writes the trace to a file.
+     * 
+     * @param path Destination file, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeInt(size);
+            out.write(types, 0, size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(cells[i]);
+            }
+        }
+    }
+    
+    /**
+     * Reads a trace written by {@link #save}.
+     * 
+     * @param path Trace file
+     * @return The loaded trace
+     * @throws IOException If the file cannot be read or is not a trace
+     */
+    public static SearchTrace load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not a trace file: " + path);
+            }
+            SearchTrace trace = new SearchTrace(in.readInt(), in.readInt());
+            int size = in.readInt();
+            // Check the size against the file before allocating for it
+            if (size < 0 || Files.size(path) != HEADER_BYTES + 5L * size) {
+                throw new IOException("Corrupt trace: " + path);
+            }
+            trace.types = new byte[Math.max(size, 1)];
+            trace.cells = new int[Math.max(size, 1)];
+            in.readFully(trace.types, 0, size);
+            for (int i = 0; i < size; i++) {
+                trace.cells[i] = in.readInt();
+            }
+            trace.size = size;
+            return trace;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import algorithms.*;
+import model.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the pathfinders that only support four-way moves, Jump Point
+ * Search and bit-parallel BFS, on the same generated maps as
+ * {@link PathfinderBenchmark} without its connectivity parameter.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class FourWayBenchmark {
+    
+    /** Search algorithm */
+    @Param({"JPS", "BITBFS"})
+    public String algorithm;
+    
+    /** Rows and columns of the square map */
+    @Param({"64", "256", "1024", "4096", "8192"})
+    public int size;
+    
+    /** Map layout */
+    @Param({"OPEN", "MAZE", "ROOMS"})
+    public MapGenerator.Layout layout;
+    
+    /** Fraction of open cells turned into random walls */
+    @Param({"0.0", "0.2"})
+    public double wallDensity;
+    
+    /** Map generator seed */
+    @Param({"42"})
+    public long seed;
+    
+    private Pathfinder pathfinder;
+    private int start, end;
+    
+    /**
+     * Builds the map and the pathfinder under test.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        Grid grid = MapGenerator.generate(size, layout, wallDensity, seed);
+        grid.setConnectivity(Connectivity.FOUR);
+        pathfinder = PathfinderBenchmark.create(algorithm, grid);
+        start = grid.getStartIndex();
+        end = grid.getEndIndex();
+    }
+    
+    /**
+     * Runs one search from the start to the end corner.
+     */
+    @Benchmark
+    public SearchResult findPath() throws InterruptedException {
+        return pathfinder.findPath(start, end);
+    }
+}
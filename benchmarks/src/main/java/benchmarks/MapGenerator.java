@@ -0,0 +1,137 @@
+package benchmarks;
+
+import model.*;
+import java.util.*;
+
+/**
+ * Builds reproducible benchmark maps from a fixed seed.
+ */
+public final class MapGenerator {
+    
+    /**
+     * Map layouts.
+     */
+    public enum Layout {
+        /** Open field with scattered walls */
+        OPEN,
+        /** Perfect maze with one-cell corridors */
+        MAZE,
+        /** Rectangular rooms joined by doors */
+        ROOMS
+    }
+    
+    private static final int ROOM_SIZE = 16;
+    
+    private MapGenerator() {
+    }
+    
+    /**
+     * Generates a square map. Start is the top-left corner and end the
+     * bottom-right corner; both are always open.
+     * 
+     * @param size Number of rows and columns
+     * @param layout Map layout
+     * @param wallDensity Fraction of open cells turned into random walls
+     * @param seed Random seed
+     * @return The generated grid
+     */
+    public static Grid generate(int size, Layout layout, double wallDensity, long seed) {
+        Grid grid = new Grid(size, size);
+        Random random = new Random(seed);
+        
+        switch (layout) {
+            case MAZE:
+                maze(grid, random);
+                break;
+            case ROOMS:
+                rooms(grid, random);
+                break;
+            default:
+                break;
+        }
+        
+        if (wallDensity > 0) {
+            for (int i = 0; i < grid.size(); i++) {
+                if (!grid.isWall(i) && random.nextDouble() < wallDensity) {
+                    grid.setCellType(i, Cell.CellType.WALL);
+                }
+            }
+        }
+        
+        grid.setCellType(0, 0, Cell.CellType.START);
+        grid.setCellType(size - 1, size - 1, Cell.CellType.END);
+        return grid;
+    }
+    
+    /**
+     * Carves a maze with an iterative randomized depth-first search over
+     * the cells at even coordinates.
+     */
+    private static void maze(Grid grid, Random random) {
+        int size = grid.getRows();
+        for (int i = 0; i < grid.size(); i++) {
+            grid.setCellType(i, Cell.CellType.WALL);
+        }
+        
+        int cells = (size + 1) / 2;
+        boolean[] carved = new boolean[cells * cells];
+        int[] stack = new int[cells * cells];
+        int[] options = new int[4];
+        int top = 0;
+        stack[top++] = 0;
+        carved[0] = true;
+        grid.setCellType(0, 0, Cell.CellType.EMPTY);
+        
+        while (top > 0) {
+            int current = stack[top - 1];
+            int row = current / cells;
+            int col = current % cells;
+            int count = 0;
+            if (row > 0 && !carved[current - cells]) options[count++] = current - cells;
+            if (row < cells - 1 && !carved[current + cells]) options[count++] = current + cells;
+            if (col > 0 && !carved[current - 1]) options[count++] = current - 1;
+            if (col < cells - 1 && !carved[current + 1]) options[count++] = current + 1;
+            
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            
+            int next = options[random.nextInt(count)];
+            int nextRow = next / cells;
+            int nextCol = next % cells;
+            carved[next] = true;
+            grid.setCellType(row + nextRow, col + nextCol, Cell.CellType.EMPTY);
+            grid.setCellType(nextRow * 2, nextCol * 2, Cell.CellType.EMPTY);
+            stack[top++] = next;
+        }
+        
+        // Even sizes leave the last row and column uncarved
+        grid.setCellType(size - 1, size - 1, Cell.CellType.EMPTY);
+        grid.setCellType(size - 2, size - 1, Cell.CellType.EMPTY);
+    }
+    
+    /**
+     * Splits the map into square rooms whose shared walls each have one door.
+     */
+    private static void rooms(Grid grid, Random random) {
+        int size = grid.getRows();
+        for (int line = ROOM_SIZE; line < size; line += ROOM_SIZE) {
+            for (int i = 0; i < size; i++) {
+                grid.setCellType(line, i, Cell.CellType.WALL);
+                grid.setCellType(i, line, Cell.CellType.WALL);
+            }
+        }
+        for (int line = ROOM_SIZE; line < size; line += ROOM_SIZE) {
+            for (int from = 0; from < size; from += ROOM_SIZE) {
+                // Doors go strictly between the crossing walls
+                int span = Math.min(from + ROOM_SIZE, size) - from - 1;
+                if (span <= 0) continue;
+                int door = from + 1 + random.nextInt(span);
+                grid.setCellType(line, door, Cell.CellType.EMPTY);
+                door = from + 1 + random.nextInt(span);
+                grid.setCellType(door, line, Cell.CellType.EMPTY);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import algorithms.*;
+import model.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures cooperative multi-agent planning: one windowed replan of every
+ * agent, which is the cost of a simulation tick, and complete plans for
+ * the whole batch. Agents start and end on random open cells drawn from a
+ * fixed seed, with each goal reachable from its start.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class MultiAgentBenchmark {
+    
+    /** Number of agents */
+    @Param({"100", "1000", "4000"})
+    public int agents;
+    
+    /** Rows and columns of the square map */
+    @Param({"256", "1024"})
+    public int size;
+    
+    /** Map layout */
+    @Param({"OPEN", "ROOMS"})
+    public MapGenerator.Layout layout;
+    
+    /** Number of steps each windowed replan searches ahead */
+    @Param({"16"})
+    public int window;
+    
+    /** Map generator seed */
+    @Param({"42"})
+    public long seed;
+    
+    private CooperativePlanner planner;
+    private int horizon;
+    
+    /**
+     * Builds the map and places the agents.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Grid grid = MapGenerator.generate(size, layout, 0.0, seed);
+        ComponentIndex components = new ComponentIndex(grid);
+        Random random = new Random(seed);
+        
+        List<Integer> cells = new ArrayList<>();
+        for (int i = 0; i < grid.size(); i++) {
+            if (!grid.isWall(i)) cells.add(i);
+        }
+        Collections.shuffle(cells, random);
+        List<Integer> goals = new ArrayList<>(cells);
+        Collections.shuffle(goals, random);
+        
+        planner = new CooperativePlanner(grid, window);
+        int next = 0;
+        for (int i = 0; i < agents && i < cells.size(); i++) {
+            int start = cells.get(i);
+            while (!components.isConnected(start, goals.get(next))) {
+                next++;
+            }
+            planner.addAgent(start, goals.get(next++));
+        }
+        components.close();
+        horizon = 8 * size;
+    }
+    
+    /**
+     * Plans the next window of every agent from the starting positions.
+     */
+    @Benchmark
+    public long replan() {
+        planner.replan();
+        return planner.getExpansions();
+    }
+    
+    /**
+     * Plans every agent's complete path to its goal.
+     */
+    @Benchmark
+    public int[][] planAll() throws InterruptedException {
+        return planner.planAll(horizon);
+    }
+}
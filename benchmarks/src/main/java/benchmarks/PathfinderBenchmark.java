@@ -0,0 +1,99 @@
+package benchmarks;
+
+import algorithms.*;
+import model.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a full start-to-end search for every {@link Pathfinder} over a
+ * matrix of generated maps. Maps are built once per trial from a fixed seed,
+ * so results are comparable across commits. Pathfinders that only move
+ * orthogonally are measured by {@link FourWayBenchmark}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class PathfinderBenchmark {
+    
+    /** Search algorithm */
+    @Param({"ASTAR", "ALT", "DIJKSTRA", "DIAL", "DELTA", "BFS", "PBFS", "DFS"})
+    public String algorithm;
+    
+    /** Rows and columns of the square map */
+    @Param({"64", "256", "1024", "4096", "8192"})
+    public int size;
+    
+    /** Map layout */
+    @Param({"OPEN", "MAZE", "ROOMS"})
+    public MapGenerator.Layout layout;
+    
+    /** Fraction of open cells turned into random walls */
+    @Param({"0.0", "0.2"})
+    public double wallDensity;
+    
+    /** Neighbor connectivity, 4 or 8 without corner cutting */
+    @Param({"4", "8"})
+    public int connectivity;
+    
+    /** Map generator seed */
+    @Param({"42"})
+    public long seed;
+    
+    private Pathfinder pathfinder;
+    private int start, end;
+    
+    /**
+     * Builds the map and the pathfinder under test. Landmark preprocessing
+     * for ALT happens here and is not measured.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        Grid grid = MapGenerator.generate(size, layout, wallDensity, seed);
+        grid.setConnectivity(connectivity == 8 ? Connectivity.EIGHT : Connectivity.FOUR);
+        pathfinder = create(algorithm, grid);
+        start = grid.getStartIndex();
+        end = grid.getEndIndex();
+    }
+    
+    /**
+     * Runs one search from the start to the end corner.
+     */
+    @Benchmark
+    public SearchResult findPath() throws InterruptedException {
+        return pathfinder.findPath(start, end);
+    }
+    
+    /**
+     * Creates a pathfinder by name.
+     */
+    static Pathfinder create(String algorithm, GridMap grid) throws InterruptedException {
+        switch (algorithm) {
+            case "ASTAR":
+                return new AStar(grid);
+            case "ALT":
+                return new AStar(grid, Landmarks.compute(grid, 8));
+            case "DIJKSTRA":
+                return new Dijkstra(grid);
+            case "DIAL":
+                return new DialDijkstra(grid);
+            case "DELTA":
+                return new DeltaStepping(grid);
+            case "BFS":
+                return new BFS(grid);
+            case "BITBFS":
+                return new BitParallelBFS(grid);
+            case "JPS":
+                return new JumpPointSearch(grid);
+            case "PBFS":
+                return new ParallelBFS(grid);
+            case "DFS":
+                return new DFS(grid);
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package model;
+
+/**
+ * Static helpers for packed bitsets stored in {@code long[]} words.
+ */
+public final class Bits {
+    private Bits() {
+    }
+    
+    /**
+     * Allocates a bitset large enough for the given number of bits.
+     * 
+     * @param size Number of bits
+     * @return Zeroed word array
+     */
+    public static long[] create(int size) {
+        return new long[(size + 63) >>> 6];
+    }
+    
+    /**
+     * Tests a bit.
+     */
+    public static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    /**
+     * Sets a bit.
+     */
+    public static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+    
+    /**
+     * Clears a bit.
+     */
+    public static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
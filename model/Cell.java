@@ -1,40 +1,29 @@
 package model;
 
 /**
- * Represents a single cell in the grid.
+ * Read-only view of a single cell in the grid, used by the UI.
+ * <p>
+ * Search state is not stored here; the algorithms keep it in flat arrays
+ * indexed by {@code row * cols + col}.
  */
 public class Cell {
     /** Row and column position */
-    public int row, col;
+    public final int row, col;
     
     /** Cell type */
-    public CellType type;
-    
-    /** Parent cell for path reconstruction */
-    public Cell parent;
-    
-    /** Distance from start */
-    public int gCost;
-    
-    /** Heuristic distance to end */
-    public int hCost;
-    
-    /** Total cost */
-    public int fCost;
+    public final CellType type;
     
     /**
-     * Creates a new cell.
+     * Creates a new cell view.
      * 
      * @param row Row index
      * @param col Column index
+     * @param type Cell type
      */
-    public Cell(int row, int col) {
+    public Cell(int row, int col, CellType type) {
         this.row = row;
         this.col = col;
-        this.type = CellType.EMPTY;
-        this.gCost = 0;
-        this.hCost = 0;
-        this.fCost = 0;
+        this.type = type;
     }
     
     /**
@@ -46,7 +35,7 @@ public class Cell {
         START,
         END,
         PATH,
-        VISITED
+        VISITED,
+        FRONTIER
     }
 }
-
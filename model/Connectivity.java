@@ -0,0 +1,95 @@
+package model;
+
+/**
+ * Which moves a search may make from a cell, and what they cost.
+ * <p>
+ * With four-way movement a step costs the cost of the cell entered. With
+ * eight-way movement steps are scaled so diagonals approximate their true
+ * length: a straight step costs {@link #STRAIGHT_COST} times the entered
+ * cell's cost and a diagonal step {@link #DIAGONAL_COST} times it. The
+ * eight-way variants differ in when a diagonal may pass the corner of a
+ * wall.
+ */
+public enum Connectivity {
+    /** Orthogonal moves only */
+    FOUR(-1),
+    
+    /** Diagonal moves only when both cells beside the move are open */
+    EIGHT(2),
+    
+    /** Diagonal moves when at least one cell beside the move is open */
+    EIGHT_CUT_CORNERS(1),
+    
+    /** Diagonal moves even between two walls */
+    EIGHT_ANY(0);
+    
+    /** Cost factor of a straight step on eight-way grids */
+    public static final int STRAIGHT_COST = 10;
+    
+    /** Cost factor of a diagonal step on eight-way grids */
+    public static final int DIAGONAL_COST = 14;
+    
+    private final int besideOpen;
+    
+    Connectivity(int besideOpen) {
+        this.besideOpen = besideOpen;
+    }
+    
+    /**
+     * Checks whether diagonal moves are allowed at all.
+     */
+    public boolean hasDiagonals() {
+        return besideOpen >= 0;
+    }
+    
+    /**
+     * Checks whether a diagonal move is allowed given the two orthogonal
+     * cells it passes between.
+     * 
+     * @param first Whether the first cell beside the move is open
+     * @param second Whether the second cell beside the move is open
+     */
+    public boolean allowsDiagonal(boolean first, boolean second) {
+        return besideOpen >= 0 && (first ? 1 : 0) + (second ? 1 : 0) >= besideOpen;
+    }
+    
+    /**
+     * Gets the cost factor of a straight step.
+     */
+    public int straightCost() {
+        return hasDiagonals() ? STRAIGHT_COST : 1;
+    }
+    
+    /**
+     * Gets the largest cost of a single step.
+     */
+    public int maxStepCost() {
+        return GridMap.MAX_COST * (hasDiagonals() ? DIAGONAL_COST : 1);
+    }
+    
+    /**
+     * Gets a lower bound on the cost between two cells a given number of
+     * rows and columns apart: Manhattan distance for four-way movement and
+     * octile distance for eight-way movement.
+     * 
+     * @param rows Absolute row difference
+     * @param cols Absolute column difference
+     */
+    public int distance(int rows, int cols) {
+        if (!hasDiagonals()) {
+            return rows + cols;
+        }
+        return STRAIGHT_COST * Math.max(rows, cols) + (DIAGONAL_COST - STRAIGHT_COST) * Math.min(rows, cols);
+    }
+    
+    /**
+     * Gets a lower bound on the number of steps between two cells a given
+     * number of rows and columns apart.
+     * 
+     * @param rows Absolute row difference
+     * @param cols Absolute column difference
+     */
+    public int steps(int rows, int cols) {
+        return hasDiagonals() ? Math.max(rows, cols) : rows + cols;
+    }
+}
@@ -1,15 +1,46 @@
 package model;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents the pathfinding grid.
+ * <p>
+ * Cell types are stored in a flat byte array and walls are mirrored in a
+ * packed bitset, both indexed by {@code row * cols + col}. {@link Cell}
+ * objects are only created on demand as views for the UI.
+ * <p>
+ * Cells marked as visited, frontier or path are remembered in a list, so
+ * clearing the visualization only touches cells that a search actually
+ * marked.
+ * <p>
+ * Each cell also has a traversal cost between 1 and {@link #MAX_COST}.
+ * Costs are kept in a byte array that is only allocated once a cell gets a
+ * cost other than 1.
+ * <p>
+ * Moves follow the grid's {@link Connectivity}. The allowed moves out of
+ * every cell are kept as a precomputed direction mask, updated around each
+ * wall edit, so neighbor iteration needs no bounds or wall checks.
+ * <p>
+ * Every change to the walls, costs or connectivity increments a version number and is
+ * reported to the registered {@link GridListener}s, which also hear about
+ * every cell type change.
  */
-public class Grid {
-    private Cell[][] cells;
+public class Grid implements GridMap {
+    private static final Cell.CellType[] TYPES = Cell.CellType.values();
+    
+    private final byte[] types;
+    private final long[] walls;
+    private byte[] costs;
+    private final byte[] masks;
+    private Connectivity connectivity = Connectivity.FOUR;
     private int rows, cols;
-    private Cell startCell, endCell;
+    private int startIndex, endIndex;
+    private int[] marked = new int[64];
+    private int markedCount;
+    private volatile long version;
+    private final List<GridListener> listeners = new CopyOnWriteArrayList<>();
     
     /**
      * Creates a new grid.
@@ -18,25 +49,46 @@ public class Grid {
      * @param cols Number of columns
      */
     public Grid(int rows, int cols) {
+        this(rows, cols, Bits.create(rows * cols), null, 0, rows * cols - 1);
+    }
+    
+    /**
+     * Creates a grid around an existing wall bitset.
+     * 
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param walls Wall bitset, taken over by the grid
+     * @param costs Cell costs, taken over by the grid, or null if every cost is 1
+     * @param startIndex Start cell index
+     * @param endIndex End cell index
+     */
+    Grid(int rows, int cols, long[] walls, byte[] costs, int startIndex, int endIndex) {
         this.rows = rows;
         this.cols = cols;
-        this.cells = new Cell[rows][cols];
+        this.types = new byte[rows * cols];
+        this.walls = walls;
+        this.costs = costs;
         
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                cells[i][j] = new Cell(i, j);
+        byte wall = (byte) Cell.CellType.WALL.ordinal();
+        for (int word = 0; word < walls.length; word++) {
+            long bits = walls[word];
+            while (bits != 0) {
+                types[(word << 6) + Long.numberOfTrailingZeros(bits)] = wall;
+                bits &= bits - 1;
             }
         }
         
-        // Set default start and end
-        startCell = cells[0][0];
-        startCell.type = Cell.CellType.START;
-        endCell = cells[rows - 1][cols - 1];
-        endCell.type = Cell.CellType.END;
+        this.startIndex = startIndex;
+        types[startIndex] = (byte) Cell.CellType.START.ordinal();
+        this.endIndex = endIndex;
+        types[endIndex] = (byte) Cell.CellType.END.ordinal();
+        
+        this.masks = new byte[rows * cols];
+        Neighbors.fill(this, connectivity, masks);
     }
     
     /**
-     * Gets cell at position.
+     * Gets a view of the cell at position.
      * 
      * @param row Row index
      * @param col Column index
@@ -44,11 +96,21 @@ public class Grid {
      */
     public Cell getCell(int row, int col) {
         if (row >= 0 && row < rows && col >= 0 && col < cols) {
-            return cells[row][col];
+            return new Cell(row, col, TYPES[types[row * cols + col]]);
         }
         return null;
     }
     
+    /**
+     * Gets the type of the cell at an index.
+     * 
+     * @param index Cell index
+     * @return Cell type
+     */
+    public Cell.CellType getCellType(int index) {
+        return TYPES[types[index]];
+    }
+    
     /**
      * Sets cell type at position.
      * 
@@ -57,89 +119,263 @@ public class Grid {
      * @param type New cell type
      */
     public void setCellType(int row, int col, Cell.CellType type) {
-        Cell cell = getCell(row, col);
-        if (cell != null) {
-            if (type == Cell.CellType.START) {
-                if (startCell != null) {
-                    startCell.type = Cell.CellType.EMPTY;
-                }
-                startCell = cell;
-            } else if (type == Cell.CellType.END) {
-                if (endCell != null) {
-                    endCell.type = Cell.CellType.EMPTY;
-                }
-                endCell = cell;
+        if (row >= 0 && row < rows && col >= 0 && col < cols) {
+            setCellType(row * cols + col, type);
+        }
+    }
+    
+    /**
+     * Sets cell type at an index.
+     * 
+     * @param index Cell index
+     * @param type New cell type
+     */
+    public void setCellType(int index, Cell.CellType type) {
+        if (type == Cell.CellType.START) {
+            setType(startIndex, Cell.CellType.EMPTY);
+            startIndex = index;
+        } else if (type == Cell.CellType.END) {
+            setType(endIndex, Cell.CellType.EMPTY);
+            endIndex = index;
+        }
+        if (type == Cell.CellType.PATH || type == Cell.CellType.VISITED || type == Cell.CellType.FRONTIER) {
+            if (markedCount == marked.length) {
+                marked = Arrays.copyOf(marked, markedCount * 2);
             }
-            cell.type = type;
+            marked[markedCount++] = index;
+        }
+        setType(index, type);
+        boolean wall = type == Cell.CellType.WALL;
+        if (wall != Bits.get(walls, index)) {
+            if (wall) {
+                Bits.set(walls, index);
+            } else {
+                Bits.clear(walls, index);
+            }
+            wallChanged(index, wall);
         }
     }
     
     /**
-     * Clears path visualization data.
+     * Clears path visualization data. Only the cells marked since the last
+     * clear are visited.
      */
     public void clearPath() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (cells[i][j].type == Cell.CellType.PATH || 
-                    cells[i][j].type == Cell.CellType.VISITED) {
-                    cells[i][j].type = Cell.CellType.EMPTY;
-                }
-                cells[i][j].parent = null;
-                cells[i][j].gCost = 0;
-                cells[i][j].hCost = 0;
-                cells[i][j].fCost = 0;
+        byte path = (byte) Cell.CellType.PATH.ordinal();
+        byte visited = (byte) Cell.CellType.VISITED.ordinal();
+        byte frontier = (byte) Cell.CellType.FRONTIER.ordinal();
+        for (int i = 0; i < markedCount; i++) {
+            int index = marked[i];
+            if (types[index] == path || types[index] == visited || types[index] == frontier) {
+                setType(index, Cell.CellType.EMPTY);
             }
         }
-        if (startCell != null) startCell.type = Cell.CellType.START;
-        if (endCell != null) endCell.type = Cell.CellType.END;
+        markedCount = 0;
+        setType(startIndex, Cell.CellType.START);
+        setType(endIndex, Cell.CellType.END);
     }
     
     /**
-     * Gets traversable neighbors of a cell.
+     * Removes every wall by walking the set bits of the wall bitset.
+     */
+    public void clearWalls() {
+        for (int word = 0; word < walls.length; word++) {
+            long bits = walls[word];
+            walls[word] = 0L;
+            while (bits != 0) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                setType(index, Cell.CellType.EMPTY);
+                bits &= bits - 1;
+                wallChanged(index, false);
+            }
+        }
+    }
+    
+    /**
+     * Sets the cost of stepping onto a cell.
      * 
-     * @param cell The cell
-     * @return List of neighbors
+     * @param index Cell index
+     * @param cost Traversal cost between 1 and {@link #MAX_COST}
+     * @throws IllegalArgumentException if the cost is out of range
      */
-    public List<Cell> getNeighbors(Cell cell) {
-        List<Cell> neighbors = new ArrayList<>();
-        int[] dr = {-1, 1, 0, 0};
-        int[] dc = {0, 0, -1, 1};
-        
-        for (int i = 0; i < 4; i++) {
-            Cell neighbor = getCell(cell.row + dr[i], cell.col + dc[i]);
-            if (neighbor != null && neighbor.type != Cell.CellType.WALL) {
-                neighbors.add(neighbor);
+    public void setCost(int index, int cost) {
+        if (cost < 1 || cost > MAX_COST) {
+            throw new IllegalArgumentException("Cost must be between 1 and " + MAX_COST + ": " + cost);
+        }
+        int oldCost = getCost(index);
+        if (cost == oldCost) return;
+        if (costs == null) {
+            costs = new byte[types.length];
+            Arrays.fill(costs, (byte) 1);
+        }
+        costs[index] = (byte) cost;
+        version++;
+        for (GridListener listener : listeners) {
+            listener.costChanged(index, oldCost, cost);
+            listener.cellChanged(index);
+        }
+    }
+    
+    @Override
+    public int getCost(int index) {
+        return costs == null ? 1 : costs[index] & 0xFF;
+    }
+    
+    /**
+     * Checks whether any cell has a cost other than 1.
+     */
+    public boolean hasCosts() {
+        return costs != null;
+    }
+    
+    /**
+     * Resets every cell's cost to 1.
+     */
+    public void clearCosts() {
+        if (costs == null) return;
+        for (int index = 0; index < costs.length; index++) {
+            setCost(index, 1);
+        }
+        costs = null;
+    }
+    
+    /**
+     * Stores a cell type and notifies listeners if it changed.
+     */
+    private void setType(int index, Cell.CellType type) {
+        byte value = (byte) type.ordinal();
+        if (types[index] != value) {
+            types[index] = value;
+            for (GridListener listener : listeners) {
+                listener.cellChanged(index);
             }
         }
-        return neighbors;
+    }
+    
+    /**
+     * Bumps the version and notifies listeners of a wall change.
+     */
+    private void wallChanged(int index, boolean wall) {
+        Neighbors.update(this, connectivity, masks, index);
+        version++;
+        for (GridListener listener : listeners) {
+            listener.wallChanged(index, wall);
+        }
+    }
+    
+    /**
+     * Sets the moves allowed between cells and recomputes every neighbor
+     * mask. Listeners are not notified, but the version changes, so caches
+     * keyed by the version start over.
+     * 
+     * @param connectivity Allowed moves
+     */
+    public void setConnectivity(Connectivity connectivity) {
+        if (connectivity == this.connectivity) return;
+        this.connectivity = connectivity;
+        Neighbors.fill(this, connectivity, masks);
+        version++;
+    }
+    
+    @Override
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+    
+    @Override
+    public int getNeighbors(int index, int[] out) {
+        return Neighbors.write(index, masks[index] & 0xFF, cols, out);
+    }
+    
+    /**
+     * Gets the version, incremented on every wall, cost or connectivity
+     * change.
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Registers a listener for wall, cost and cell type changes.
+     */
+    public void addListener(GridListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Unregisters a listener.
+     */
+    public void removeListener(GridListener listener) {
+        listeners.remove(listener);
+    }
+    
+    @Override
+    public boolean isWall(int index) {
+        return Bits.get(walls, index);
+    }
+    
+    /**
+     * Takes an immutable copy of the walls, costs and connectivity for use
+     * by concurrent searches.
+     */
+    public GridSnapshot snapshot() {
+        return new GridSnapshot(rows, cols, walls, costs, connectivity, masks);
+    }
+    
+    /**
+     * Gets the live wall bitset for serialization.
+     */
+    long[] getWallBits() {
+        return walls;
+    }
+    
+    /**
+     * Gets the live cost array for serialization, or null if every cost is 1.
+     */
+    byte[] getCostBytes() {
+        return costs;
     }
     
     /**
      * Gets start cell.
      */
     public Cell getStartCell() {
-        return startCell;
+        return getCell(getRow(startIndex), getCol(startIndex));
     }
     
     /**
      * Gets end cell.
      */
     public Cell getEndCell() {
-        return endCell;
+        return getCell(getRow(endIndex), getCol(endIndex));
     }
     
     /**
-     * Gets number of rows.
+     * Gets start cell index.
      */
-    public int getRows() {
-        return rows;
+    public int getStartIndex() {
+        return startIndex;
     }
     
     /**
-     * Gets number of columns.
+     * Gets end cell index.
      */
+    public int getEndIndex() {
+        return endIndex;
+    }
+    
+    @Override
+    public int getRows() {
+        return rows;
+    }
+    
+    @Override
     public int getCols() {
         return cols;
     }
+    
+    @Override
+    public int size() {
+        return types.length;
+    }
 }
-
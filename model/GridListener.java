@@ -0,0 +1,35 @@
+package model;
+
+/**
+ * Notified when a grid's traversability or cell types change.
+ */
+public interface GridListener {
+    /**
+     * Called after a cell became a wall or stopped being one. The grid
+     * version has already been incremented.
+     * 
+     * @param index Cell index
+     * @param wall true if the cell is now a wall
+     */
+    void wallChanged(int index, boolean wall);
+    
+    /**
+     * Called after the type of a cell changed, including visited and path
+     * marks. Used by views to redraw just that cell.
+     * 
+     * @param index Cell index
+     */
+    default void cellChanged(int index) {
+    }
+    
+    /**
+     * Called after the traversal cost of a cell changed. The grid version
+     * has already been incremented.
+     * 
+     * @param index Cell index
+     * @param oldCost Previous cost
+     * @param newCost New cost
+     */
+    default void costChanged(int index, int oldCost, int newCost) {
+    }
+}
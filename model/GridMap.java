@@ -0,0 +1,124 @@
+package model;
+
+/**
+ * Read-only view of a grid's walls and traversal costs, which is all the
+ * search algorithms need. Cells are addressed by index
+ * {@code row * cols + col}.
+ */
+public interface GridMap {
+    /** Largest traversal cost of a cell */
+    int MAX_COST = 255;
+    
+    /** Largest number of neighbors a cell can have */
+    int MAX_NEIGHBORS = 8;
+    
+    /**
+     * Gets number of rows.
+     */
+    int getRows();
+    
+    /**
+     * Gets number of columns.
+     */
+    int getCols();
+    
+    /**
+     * Checks whether the cell at an index is a wall.
+     * 
+     * @param index Cell index
+     * @return true if the cell is blocked
+     */
+    boolean isWall(int index);
+    
+    /**
+     * Gets the cost of stepping onto a cell, between 1 and
+     * {@link #MAX_COST}. Maps without terrain cost 1 everywhere.
+     * 
+     * @param index Cell index
+     * @return Traversal cost
+     */
+    default int getCost(int index) {
+        return 1;
+    }
+    
+    /**
+     * Gets number of cells.
+     */
+    default int size() {
+        return getRows() * getCols();
+    }
+    
+    /**
+     * Converts a position to a cell index.
+     */
+    default int index(int row, int col) {
+        return row * getCols() + col;
+    }
+    
+    /**
+     * Gets the row of a cell index.
+     */
+    default int getRow(int index) {
+        return index / getCols();
+    }
+    
+    /**
+     * Gets the column of a cell index.
+     */
+    default int getCol(int index) {
+        return index % getCols();
+    }
+    
+    /**
+     * Gets the moves allowed between cells.
+     */
+    default Connectivity getConnectivity() {
+        return Connectivity.FOUR;
+    }
+    
+    /**
+     * Gets the cost of moving between two neighboring cells: the cost of
+     * the entered cell, scaled by the step length on eight-way grids.
+     * 
+     * @param from Cell moved from
+     * @param to Neighboring cell moved to
+     * @return Step cost
+     */
+    default int stepCost(int from, int to) {
+        Connectivity connectivity = getConnectivity();
+        int cost = getCost(to);
+        if (!connectivity.hasDiagonals()) {
+            return cost;
+        }
+        int cols = getCols();
+        int delta = Math.abs(to - from);
+        boolean straight = delta == cols || (delta == 1 && (cols > 2 || from / cols == to / cols));
+        return cost * (straight ? Connectivity.STRAIGHT_COST : Connectivity.DIAGONAL_COST);
+    }
+    
+    /**
+     * Gets a lower bound on the cost of a path between two cells.
+     */
+    default int distance(int a, int b) {
+        return getConnectivity().distance(Math.abs(getRow(a) - getRow(b)), Math.abs(getCol(a) - getCol(b)));
+    }
+    
+    /**
+     * Gets a lower bound on the number of steps between two cells.
+     */
+    default int steps(int a, int b) {
+        return getConnectivity().steps(Math.abs(getRow(a) - getRow(b)), Math.abs(getCol(a) - getCol(b)));
+    }
+    
+    /**
+     * Writes the traversable neighbors of a cell into a caller-owned buffer.
+     * Orthogonal neighbors come first. No objects are allocated.
+     * 
+     * @param index Cell index
+     * @param out Buffer with room for at least {@link #MAX_NEIGHBORS} indices
+     * @return Number of neighbors written
+     */
+    default int getNeighbors(int index, int[] out) {
+        return Neighbors.write(index, Neighbors.mask(this, index, getConnectivity()), getCols(), out);
+    }
+}
@@ -0,0 +1,62 @@
+package model;
+
+/**
+ * Immutable copy of a grid's walls, costs and connectivity. Safe to share between
+ * threads while the original grid keeps changing.
+ */
+public final class GridSnapshot implements GridMap {
+    private final int rows, cols;
+    private final long[] walls;
+    private final byte[] costs;
+    private final Connectivity connectivity;
+    private final byte[] masks;
+    
+    /**
+     * Creates a snapshot from a wall bitset.
+     * 
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param walls Wall bitset, copied
+     * @param costs Cell costs, copied, or null if every cost is 1
+     * @param connectivity Allowed moves
+     * @param masks Neighbor masks matching the walls, copied
+     */
+    GridSnapshot(int rows, int cols, long[] walls, byte[] costs, Connectivity connectivity, byte[] masks) {
+        this.rows = rows;
+        this.cols = cols;
+        this.walls = walls.clone();
+        this.costs = costs == null ? null : costs.clone();
+        this.connectivity = connectivity;
+        this.masks = masks.clone();
+    }
+    
+    @Override
+    public int getRows() {
+        return rows;
+    }
+    
+    @Override
+    public int getCols() {
+        return cols;
+    }
+    
+    @Override
+    public boolean isWall(int index) {
+        return Bits.get(walls, index);
+    }
+    
+    @Override
+    public int getCost(int index) {
+        return costs == null ? 1 : costs[index] & 0xFF;
+    }
+    
+    @Override
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+    
+    @Override
+    public int getNeighbors(int index, int[] out) {
+        return Neighbors.write(index, masks[index] & 0xFF, cols, out);
+    }
+}
@@ -0,0 +1,160 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes the binary map format.
+ * <p>
+ * All values are little-endian. The file starts with a 32 byte header:
+ * <pre>
+ *  0  int    magic "PFMP"
+ *  4  short  format version
+ *  6  short  flags, bit 0 set when per-cell costs follow the walls,
+ *            bits 1-2 the {@link Connectivity} ordinal
+ *  8  int    rows
+ * 12  int    cols
+ * 16  int    start cell index
+ * 20  int    end cell index
+ * 24  long   reserved
+ * </pre>
+ * The header is followed by the wall bitset as 64-bit words in the same
+ * layout as {@link Bits}, and optionally by one unsigned cost byte per
+ * cell.
+ */
+public final class MapFile {
+    static final int MAGIC = 0x504D4650;
+    static final short VERSION = 1;
+    static final short FLAG_COSTS = 1;
+    static final int CONNECTIVITY_SHIFT = 1;
+    static final int CONNECTIVITY_MASK = 3;
+    static final int HEADER_SIZE = 32;
+    
+    private MapFile() {
+    }
+    
+    /**
+     * Writes the walls, costs and endpoints of a grid to a file. The cost
+     * block is left out when every cost is 1.
+     * 
+     * @param grid The grid to save
+     * @param path Destination file, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public static void save(Grid grid, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            byte[] costs = grid.getCostBytes();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC)
+                  .putShort(VERSION)
+                  .putShort((short) ((costs != null ? FLAG_COSTS : 0)
+                          | grid.getConnectivity().ordinal() << CONNECTIVITY_SHIFT))
+                  .putInt(grid.getRows())
+                  .putInt(grid.getCols())
+                  .putInt(grid.getStartIndex())
+                  .putInt(grid.getEndIndex())
+                  .putLong(0L);
+            
+            for (long word : grid.getWallBits()) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putLong(word);
+            }
+            flush(channel, buffer);
+            if (costs != null) {
+                ByteBuffer costBuffer = ByteBuffer.wrap(costs);
+                while (costBuffer.hasRemaining()) {
+                    channel.write(costBuffer);
+                }
+            }
+        }
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Maps a file for in-place searching. Only the header is read up front;
+     * pages are loaded by the OS as cells are touched.
+     * 
+     * @param path Map file
+     * @return Read-only map backed by the file
+     * @throws IOException If the file cannot be read or is not a map file
+     */
+    public static MappedGridMap open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a map file: " + path);
+            }
+            
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((fileSize - 1 >>> MappedGridMap.CHUNK_SHIFT) + 1)];
+            for (int i = 0; i < chunks.length; i++) {
+                long position = (long) i << MappedGridMap.CHUNK_SHIFT;
+                long length = Math.min(fileSize - position, 1L << MappedGridMap.CHUNK_SHIFT);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            
+            ByteBuffer header = chunks[0];
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a map file: " + path);
+            }
+            if (header.getShort(4) != VERSION) {
+                throw new IOException("Unsupported map version " + header.getShort(4) + ": " + path);
+            }
+            int flags = header.getShort(6);
+            boolean hasCosts = (flags & FLAG_COSTS) != 0;
+            Connectivity connectivity = Connectivity.values()[(flags >> CONNECTIVITY_SHIFT) & CONNECTIVITY_MASK];
+            int rows = header.getInt(8);
+            int cols = header.getInt(12);
+            int startIndex = header.getInt(16);
+            int endIndex = header.getInt(20);
+            
+            long size = (long) rows * cols;
+            long expected = HEADER_SIZE + ((size + 63) >>> 6) * Long.BYTES + (hasCosts ? size : 0);
+            if (rows <= 0 || cols <= 0 || size > Integer.MAX_VALUE || fileSize < expected
+                    || startIndex < 0 || startIndex >= size || endIndex < 0 || endIndex >= size) {
+                throw new IOException("Corrupt map header: " + path);
+            }
+            return new MappedGridMap(chunks, rows, cols, startIndex, endIndex, hasCosts, connectivity);
+        }
+    }
+    
+    /**
+     * Reads a file into an editable grid.
+     * 
+     * @param path Map file
+     * @return A new grid with the saved walls, costs, connectivity and endpoints
+     * @throws IOException If the file cannot be read or is not a map file
+     */
+    public static Grid load(Path path) throws IOException {
+        MappedGridMap map = open(path);
+        long[] walls = Bits.create(map.size());
+        for (int word = 0; word < walls.length; word++) {
+            walls[word] = map.getWallWord(word);
+        }
+        byte[] costs = null;
+        if (map.hasCosts()) {
+            costs = new byte[map.size()];
+            for (int index = 0; index < costs.length; index++) {
+                costs[index] = (byte) map.getCost(index);
+            }
+        }
+        Grid grid = new Grid(map.getRows(), map.getCols(), walls, costs, map.getStartIndex(), map.getEndIndex());
+        grid.setConnectivity(map.getConnectivity());
+        return grid;
+    }
+}
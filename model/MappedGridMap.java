@@ -0,0 +1,95 @@
+package model;
+
+import java.nio.MappedByteBuffer;
+
+/**
+ * Read-only grid backed by a memory-mapped map file.
+ * <p>
+ * Files larger than a single mapping are split into 1 GB chunks. Wall
+ * words never straddle a chunk boundary because the header and chunk
+ * sizes are multiples of eight bytes.
+ */
+public final class MappedGridMap implements GridMap {
+    static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    
+    private final MappedByteBuffer[] chunks;
+    private final int rows, cols;
+    private final int startIndex, endIndex;
+    private final boolean hasCosts;
+    private final long costOffset;
+    private final Connectivity connectivity;
+    
+    MappedGridMap(MappedByteBuffer[] chunks, int rows, int cols, int startIndex, int endIndex, boolean hasCosts,
+                  Connectivity connectivity) {
+        this.chunks = chunks;
+        this.rows = rows;
+        this.cols = cols;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+        this.hasCosts = hasCosts;
+        this.connectivity = connectivity;
+        this.costOffset = MapFile.HEADER_SIZE + (((long) rows * cols + 63) >>> 6) * Long.BYTES;
+    }
+    
+    @Override
+    public int getRows() {
+        return rows;
+    }
+    
+    @Override
+    public int getCols() {
+        return cols;
+    }
+    
+    @Override
+    public boolean isWall(int index) {
+        long position = MapFile.HEADER_SIZE + (index >>> 3);
+        return (chunks[(int) (position >>> CHUNK_SHIFT)].get((int) (position & CHUNK_MASK)) & (1 << (index & 7))) != 0;
+    }
+    
+    /**
+     * Gets the cost of entering a cell, 1 when the file stores no costs.
+     * A stored 0 is read as 1.
+     */
+    @Override
+    public int getCost(int index) {
+        if (!hasCosts) return 1;
+        long position = costOffset + index;
+        return Math.max(1, chunks[(int) (position >>> CHUNK_SHIFT)].get((int) (position & CHUNK_MASK)) & 0xFF);
+    }
+    
+    @Override
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+    
+    /**
+     * Checks whether the file stores per-cell costs.
+     */
+    public boolean hasCosts() {
+        return hasCosts;
+    }
+    
+    /**
+     * Gets the saved start cell index.
+     */
+    public int getStartIndex() {
+        return startIndex;
+    }
+    
+    /**
+     * Gets the saved end cell index.
+     */
+    public int getEndIndex() {
+        return endIndex;
+    }
+    
+    /**
+     * Reads one 64-bit word of the wall bitset.
+     */
+    long getWallWord(int word) {
+        long position = MapFile.HEADER_SIZE + (long) word * Long.BYTES;
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+    }
+}
@@ -0,0 +1,118 @@
+package model;
+
+/**
+ * Neighbor masks: one bit per direction, set when the move in that
+ * direction is allowed. Straight directions come first, so decoding a mask
+ * lists orthogonal neighbors before diagonal ones.
+ */
+final class Neighbors {
+    /** Row offset of each direction: up, down, left, right, then diagonals */
+    private static final int[] ROW = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] COL = {0, 0, -1, 1, -1, 1, -1, 1};
+    
+    static final int UP = 1, DOWN = 2, LEFT = 4, RIGHT = 8;
+    static final int UP_LEFT = 16, UP_RIGHT = 32, DOWN_LEFT = 64, DOWN_RIGHT = 128;
+    
+    private Neighbors() {
+    }
+    
+    /**
+     * Computes the mask of allowed moves out of a cell. The cell's own wall
+     * state is not considered.
+     * 
+     * @param map The map to read walls from
+     * @param index Cell index
+     * @param connectivity Allowed moves
+     * @return Bits of the allowed directions
+     */
+    static int mask(GridMap map, int index, Connectivity connectivity) {
+        int rows = map.getRows();
+        int cols = map.getCols();
+        int row = index / cols;
+        int col = index - row * cols;
+        boolean up = row > 0, down = row < rows - 1, left = col > 0, right = col < cols - 1;
+        int open = 0;
+        if (up && !map.isWall(index - cols)) open |= UP;
+        if (down && !map.isWall(index + cols)) open |= DOWN;
+        if (left && !map.isWall(index - 1)) open |= LEFT;
+        if (right && !map.isWall(index + 1)) open |= RIGHT;
+        if (!connectivity.hasDiagonals()) {
+            return open;
+        }
+        if (up && left && !map.isWall(index - cols - 1)) open |= UP_LEFT;
+        if (up && right && !map.isWall(index - cols + 1)) open |= UP_RIGHT;
+        if (down && left && !map.isWall(index + cols - 1)) open |= DOWN_LEFT;
+        if (down && right && !map.isWall(index + cols + 1)) open |= DOWN_RIGHT;
+        return mask(open, connectivity);
+    }
+    
+    /**
+     * Computes the mask of allowed moves from the open cells around a cell.
+     * 
+     * @param open Bits of the directions whose neighbor is inside the grid
+     *        and not a wall
+     * @param connectivity Allowed moves
+     * @return Bits of the allowed directions
+     */
+    static int mask(int open, Connectivity connectivity) {
+        int mask = open & (UP | DOWN | LEFT | RIGHT);
+        if (!connectivity.hasDiagonals()) {
+            return mask;
+        }
+        if ((open & UP_LEFT) != 0
+                && connectivity.allowsDiagonal((mask & UP) != 0, (mask & LEFT) != 0)) mask |= UP_LEFT;
+        if ((open & UP_RIGHT) != 0
+                && connectivity.allowsDiagonal((mask & UP) != 0, (mask & RIGHT) != 0)) mask |= UP_RIGHT;
+        if ((open & DOWN_LEFT) != 0
+                && connectivity.allowsDiagonal((mask & DOWN) != 0, (mask & LEFT) != 0)) mask |= DOWN_LEFT;
+        if ((open & DOWN_RIGHT) != 0
+                && connectivity.allowsDiagonal((mask & DOWN) != 0, (mask & RIGHT) != 0)) mask |= DOWN_RIGHT;
+        return mask;
+    }
+    
+    /**
+     * Writes the cells selected by a mask into a buffer.
+     * 
+     * @param index Cell index
+     * @param mask Bits of the allowed directions
+     * @param cols Number of columns
+     * @param out Buffer with room for {@link GridMap#MAX_NEIGHBORS} indices
+     * @return Number of neighbors written
+     */
+    static int write(int index, int mask, int cols, int[] out) {
+        int count = 0;
+        while (mask != 0) {
+            int direction = Integer.numberOfTrailingZeros(mask);
+            out[count++] = index + ROW[direction] * cols + COL[direction];
+            mask &= mask - 1;
+        }
+        return count;
+    }
+    
+    /**
+     * Fills the masks of every cell.
+     */
+    static void fill(GridMap map, Connectivity connectivity, byte[] masks) {
+        for (int index = 0; index < masks.length; index++) {
+            masks[index] = (byte) mask(map, index, connectivity);
+        }
+    }
+    
+    /**
+     * Recomputes the masks of the cells around an edited cell. A wall can
+     * change moves into it and, through the corner rules, diagonal moves
+     * between the cells beside it.
+     */
+    static void update(GridMap map, Connectivity connectivity, byte[] masks, int index) {
+        int rows = map.getRows();
+        int cols = map.getCols();
+        int row = index / cols;
+        int col = index - row * cols;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(cols - 1, col + 1); c++) {
+                int cell = r * cols + c;
+                masks[cell] = (byte) mask(map, cell, connectivity);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package model;
+
+/**
+ * Produces the walls of a {@link TiledGridMap} tile when it is first read,
+ * for worlds that are generated procedurally or streamed from storage.
+ * Tiles may be evicted and loaded again, so a provider must return the
+ * same walls every time it is asked for a tile.
+ */
+@FunctionalInterface
+public interface TileProvider {
+    /**
+     * Writes the walls of a tile. Word {@code r} of the buffer holds tile
+     * row {@code r}, with bit {@code c} set for a wall in tile column
+     * {@code c}. Bits past the edge of the map are ignored.
+     * <p>
+     * Providers that read from storage should wrap I/O errors in an
+     * unchecked exception.
+     * 
+     * @param tileRow Row of the tile, counted in tiles
+     * @param tileCol Column of the tile, counted in tiles
+     * @param walls Zeroed buffer of {@link TiledGridMap#TILE_SIZE} words
+     */
+    void load(int tileRow, int tileCol, long[] walls);
+}
@@ -0,0 +1,451 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Grid stored as square tiles of {@link #TILE_SIZE} cells a side, for large
+ * worlds that are mostly open or mostly solid.
+ * <p>
+ * Tiles that are entirely open or entirely walls are not allocated: they
+ * share one immutable instance of each kind, so a world costs a reference
+ * per tile plus storage for the tiles that mix walls and open cells. A
+ * mixed tile keeps one wall word per tile row and, once one of its cells
+ * gets a cost other than 1, a cost byte per cell. Editing a shared tile
+ * gives it its own copy, and a tile that becomes uniform again goes back
+ * to the shared one.
+ * <p>
+ * With a {@link TileProvider}, tiles are produced the first time they are
+ * read. Once more mixed tiles are loaded than the memory budget allows, a
+ * clock sweep drops loaded tiles that have not been read recently, and they
+ * are produced again if read later. Edited tiles are kept in memory outside
+ * the budget.
+ * <p>
+ * Cells are addressed by index like on any {@link GridMap}, so the number
+ * of cells must fit in an int. Any number of threads may read at once, but
+ * edits must not overlap reads.
+ * <p>
+ * Only the map is tiled. The pathfinders keep dense per-cell scratch
+ * arrays sized by the whole map, however little of it a search reaches:
+ * about 32 bytes per cell for A* and Dijkstra, 20 for BFS and under one
+ * for bit-parallel BFS. So a map can be searched only while those arrays
+ * fit in the heap. For A* that is about 2 GB at 8192x8192 and 8 GB at
+ * 16384x16384, and a map of 2^31 cells needs 64 GB, even though the map
+ * itself may take a few megabytes.
+ */
+public final class TiledGridMap implements GridMap {
+    /** Number of rows and columns of a tile, the bits in a wall word */
+    public static final int TILE_SIZE = 64;
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+    
+    /** Approximate memory taken by a loaded tile, for the budget */
+    public static final int TILE_BYTES = TILE_SIZE * Long.BYTES + 64;
+    
+    private static final Tile OPEN = new Tile(new long[TILE_SIZE]);
+    private static final Tile BLOCKED = new Tile(filled(-1L));
+    
+    private final int rows, cols;
+    private final int tileCols;
+    private final Tile[] tiles;
+    private Connectivity connectivity = Connectivity.FOUR;
+    
+    private final TileProvider provider;
+    private final long[] buffer = new long[TILE_SIZE];
+    
+    /** Tile indices of the loaded tiles that may be evicted, swept by the clock hand */
+    private final int[] ring;
+    private int ringSize;
+    private int hand;
+    private long loads, evictions;
+    
+    /**
+     * Creates an open map.
+     * 
+     * @param rows Number of rows
+     * @param cols Number of columns
+     */
+    public TiledGridMap(int rows, int cols) {
+        this(rows, cols, null, 0);
+    }
+    
+    /**
+     * Creates a map whose tiles are produced on demand.
+     * 
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param provider Source of the tiles' walls
+     * @param memoryBudget Bytes loaded tiles may take, at least one tile's
+     *        worth is always kept
+     */
+    public TiledGridMap(int rows, int cols, TileProvider provider, long memoryBudget) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map must have between 1 and " + Integer.MAX_VALUE + " cells: "
+                + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.tileCols = (cols + TILE_MASK) >>> TILE_SHIFT;
+        int tileCount = ((rows + TILE_MASK) >>> TILE_SHIFT) * tileCols;
+        this.tiles = new Tile[tileCount];
+        this.provider = provider;
+        if (provider == null) {
+            Arrays.fill(tiles, OPEN);
+            this.ring = new int[0];
+        } else {
+            this.ring = new int[(int) Math.max(1, Math.min(tileCount, memoryBudget / TILE_BYTES))];
+        }
+    }
+    
+    @Override
+    public int getRows() {
+        return rows;
+    }
+    
+    @Override
+    public int getCols() {
+        return cols;
+    }
+    
+    @Override
+    public boolean isWall(int index) {
+        int row = index / cols;
+        return isWall(row, index - row * cols);
+    }
+    
+    @Override
+    public int getCost(int index) {
+        int row = index / cols;
+        int col = index - row * cols;
+        byte[] costs = tile(tileIndex(row, col)).costs;
+        return costs == null ? 1 : costs[offset(row, col)] & 0xFF;
+    }
+    
+    @Override
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+    
+    /**
+     * Sets the moves allowed between cells.
+     * 
+     * @param connectivity Allowed moves
+     */
+    public void setConnectivity(Connectivity connectivity) {
+        this.connectivity = connectivity;
+    }
+    
+    /**
+     * Reads the 3x3 block around a cell straight from its tile's wall words
+     * when the block lies inside one tile, which is most cells.
+     */
+    @Override
+    public int getNeighbors(int index, int[] out) {
+        int row = index / cols;
+        int col = index - row * cols;
+        int r = row & TILE_MASK;
+        int c = col & TILE_MASK;
+        int open;
+        if (r > 0 && r < TILE_MASK && c > 0 && c < TILE_MASK && row < rows - 1 && col < cols - 1) {
+            long[] walls = tile(tileIndex(row, col)).walls;
+            long above = ~walls[r - 1] >>> (c - 1);
+            long middle = ~walls[r] >>> (c - 1);
+            long below = ~walls[r + 1] >>> (c - 1);
+            open = ((above & 2) != 0 ? Neighbors.UP : 0)
+                | ((below & 2) != 0 ? Neighbors.DOWN : 0)
+                | ((middle & 1) != 0 ? Neighbors.LEFT : 0)
+                | ((middle & 4) != 0 ? Neighbors.RIGHT : 0)
+                | ((above & 1) != 0 ? Neighbors.UP_LEFT : 0)
+                | ((above & 4) != 0 ? Neighbors.UP_RIGHT : 0)
+                | ((below & 1) != 0 ? Neighbors.DOWN_LEFT : 0)
+                | ((below & 4) != 0 ? Neighbors.DOWN_RIGHT : 0);
+        } else {
+            open = (isOpen(row - 1, col) ? Neighbors.UP : 0)
+                | (isOpen(row + 1, col) ? Neighbors.DOWN : 0)
+                | (isOpen(row, col - 1) ? Neighbors.LEFT : 0)
+                | (isOpen(row, col + 1) ? Neighbors.RIGHT : 0);
+            if (connectivity.hasDiagonals()) {
+                open |= (isOpen(row - 1, col - 1) ? Neighbors.UP_LEFT : 0)
+                    | (isOpen(row - 1, col + 1) ? Neighbors.UP_RIGHT : 0)
+                    | (isOpen(row + 1, col - 1) ? Neighbors.DOWN_LEFT : 0)
+                    | (isOpen(row + 1, col + 1) ? Neighbors.DOWN_RIGHT : 0);
+            }
+        }
+        return Neighbors.write(index, Neighbors.mask(open, connectivity), cols, out);
+    }
+    
+    /**
+     * Places or removes a wall.
+     * 
+     * @param index Cell index
+     * @param wall true to place a wall
+     */
+    public void setWall(int index, boolean wall) {
+        int row = index / cols;
+        int col = index - row * cols;
+        if (isWall(row, col) == wall) return;
+        int tileIndex = tileIndex(row, col);
+        editable(tileIndex).walls[row & TILE_MASK] ^= 1L << col;
+        compact(tileIndex);
+    }
+    
+    /**
+     * Places or removes walls over a rectangle. Tiles the rectangle covers
+     * completely become uniform without being allocated.
+     * 
+     * @param row Top row
+     * @param col Left column
+     * @param height Number of rows
+     * @param width Number of columns
+     * @param wall true to place walls
+     * @throws IllegalArgumentException if the rectangle leaves the map
+     */
+    public void fillWalls(int row, int col, int height, int width, boolean wall) {
+        if (row < 0 || col < 0 || height < 0 || width < 0 || row + height > rows || col + width > cols) {
+            throw new IllegalArgumentException("Rectangle outside the map: " + row + ", " + col + ", "
+                + height + "x" + width);
+        }
+        for (int top = row; top < row + height; top = (top | TILE_MASK) + 1) {
+            int bottom = Math.min(row + height, (top | TILE_MASK) + 1);
+            for (int left = col; left < col + width; left = (left | TILE_MASK) + 1) {
+                int right = Math.min(col + width, (left | TILE_MASK) + 1);
+                int tileIndex = tileIndex(top, left);
+                boolean whole = (top & TILE_MASK) == 0 && (left & TILE_MASK) == 0
+                    && (bottom == rows || bottom - top == TILE_SIZE) && (right == cols || right - left == TILE_SIZE);
+                Tile tile = tiles[tileIndex];
+                if (whole && (tile == null || tile.costs == null)) {
+                    replace(tileIndex, wall ? BLOCKED : OPEN);
+                    continue;
+                }
+                long bits = right - left == TILE_SIZE ? -1L : ((1L << (right - left)) - 1) << left;
+                long[] walls = editable(tileIndex).walls;
+                for (int r = top; r < bottom; r++) {
+                    if (wall) {
+                        walls[r & TILE_MASK] |= bits;
+                    } else {
+                        walls[r & TILE_MASK] &= ~bits;
+                    }
+                }
+                compact(tileIndex);
+            }
+        }
+    }
+    
+    /**
+     * Sets the cost of stepping onto a cell.
+     * 
+     * @param index Cell index
+     * @param cost Traversal cost between 1 and {@link #MAX_COST}
+     * @throws IllegalArgumentException if the cost is out of range
+     */
+    public void setCost(int index, int cost) {
+        if (cost < 1 || cost > MAX_COST) {
+            throw new IllegalArgumentException("Cost must be between 1 and " + MAX_COST + ": " + cost);
+        }
+        if (cost == getCost(index)) return;
+        int row = index / cols;
+        int col = index - row * cols;
+        int tileIndex = tileIndex(row, col);
+        Tile tile = editable(tileIndex);
+        if (tile.costs == null) {
+            tile.costs = new byte[TILE_SIZE * TILE_SIZE];
+            Arrays.fill(tile.costs, (byte) 1);
+        }
+        tile.costs[offset(row, col)] = (byte) cost;
+        if (cost == 1) {
+            compact(tileIndex);
+        }
+    }
+    
+    /**
+     * Gets the number of tiles with storage of their own: loaded or edited
+     * tiles that mix walls and open cells or have costs.
+     */
+    public synchronized int getAllocatedTiles() {
+        int count = 0;
+        for (Tile tile : tiles) {
+            if (tile != null && tile != OPEN && tile != BLOCKED) count++;
+        }
+        return count;
+    }
+    
+    /**
+     * Gets the number of tiles produced by the provider so far.
+     */
+    public synchronized long getLoads() {
+        return loads;
+    }
+    
+    /**
+     * Gets the number of tiles dropped to stay within the memory budget.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    private boolean isWall(int row, int col) {
+        return (tile(tileIndex(row, col)).walls[row & TILE_MASK] & (1L << col)) != 0;
+    }
+    
+    private boolean isOpen(int row, int col) {
+        return row >= 0 && row < rows && col >= 0 && col < cols && !isWall(row, col);
+    }
+    
+    private int tileIndex(int row, int col) {
+        return (row >>> TILE_SHIFT) * tileCols + (col >>> TILE_SHIFT);
+    }
+    
+    private static int offset(int row, int col) {
+        return (row & TILE_MASK) << TILE_SHIFT | (col & TILE_MASK);
+    }
+    
+    /**
+     * Gets a tile for reading, loading it if needed.
+     */
+    private Tile tile(int tileIndex) {
+        Tile tile = tiles[tileIndex];
+        if (tile == null) {
+            return load(tileIndex);
+        }
+        if (tile.slot >= 0 && !tile.referenced) {
+            tile.referenced = true;
+        }
+        return tile;
+    }
+    
+    private synchronized Tile load(int tileIndex) {
+        Tile tile = tiles[tileIndex];
+        if (tile != null) return tile;
+        Arrays.fill(buffer, 0L);
+        provider.load(tileIndex / tileCols, tileIndex % tileCols, buffer);
+        loads++;
+        tile = uniform(tileIndex, buffer, null);
+        if (tile == null) {
+            if (ringSize == ring.length) {
+                evict();
+            }
+            tile = new Tile(buffer.clone());
+            tile.slot = ringSize;
+            ring[ringSize++] = tileIndex;
+        }
+        tiles[tileIndex] = tile;
+        return tile;
+    }
+    
+    /**
+     * Drops the first loaded tile the clock hand finds not read since its
+     * last pass.
+     */
+    private void evict() {
+        while (true) {
+            if (hand >= ringSize) {
+                hand = 0;
+            }
+            int tileIndex = ring[hand];
+            Tile tile = tiles[tileIndex];
+            if (tile.referenced) {
+                tile.referenced = false;
+                hand++;
+            } else {
+                unlink(tile);
+                tiles[tileIndex] = null;
+                evictions++;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Removes a tile from the clock ring, so it is never evicted.
+     */
+    private void unlink(Tile tile) {
+        int last = ring[--ringSize];
+        ring[tile.slot] = last;
+        tiles[last].slot = tile.slot;
+        tile.slot = -1;
+    }
+    
+    /**
+     * Gets a tile for editing: its own copy if it was shared, kept out of
+     * eviction so the edit is not lost.
+     */
+    private synchronized Tile editable(int tileIndex) {
+        Tile tile = tile(tileIndex);
+        if (tile == OPEN || tile == BLOCKED) {
+            tile = new Tile(tile.walls.clone());
+            tiles[tileIndex] = tile;
+        } else if (tile.slot >= 0) {
+            unlink(tile);
+        }
+        return tile;
+    }
+    
+    private synchronized void replace(int tileIndex, Tile tile) {
+        Tile old = tiles[tileIndex];
+        if (old != null && old.slot >= 0) {
+            unlink(old);
+        }
+        tiles[tileIndex] = tile;
+    }
+    
+    /**
+     * Swaps an edited tile for a shared one if it became uniform.
+     */
+    private void compact(int tileIndex) {
+        Tile tile = tiles[tileIndex];
+        if (tile.costs != null) {
+            for (byte cost : tile.costs) {
+                if (cost != 1) return;
+            }
+            tile.costs = null;
+        }
+        Tile shared = uniform(tileIndex, tile.walls, tile);
+        if (shared != tile) {
+            replace(tileIndex, shared);
+        }
+    }
+    
+    /**
+     * Gets the shared tile equal to a tile's walls within the map.
+     * 
+     * @return The shared tile, or the fallback if the walls are mixed
+     */
+    private Tile uniform(int tileIndex, long[] walls, Tile fallback) {
+        int top = tileIndex / tileCols << TILE_SHIFT;
+        int left = tileIndex % tileCols << TILE_SHIFT;
+        int height = Math.min(TILE_SIZE, rows - top);
+        int width = Math.min(TILE_SIZE, cols - left);
+        long bits = width == TILE_SIZE ? -1L : (1L << width) - 1;
+        long any = 0, all = bits;
+        for (int r = 0; r < height; r++) {
+            any |= walls[r] & bits;
+            all &= walls[r];
+        }
+        if (any == 0) return OPEN;
+        if (all == bits) return BLOCKED;
+        return fallback;
+    }
+    
+    private static long[] filled(long value) {
+        long[] words = new long[TILE_SIZE];
+        Arrays.fill(words, value);
+        return words;
+    }
+    
+    /**
+     * Walls, costs and clock state of one tile.
+     */
+    private static final class Tile {
+        final long[] walls;
+        
+        /** Cost of each cell, row-major, or null if every cost is 1 */
+        byte[] costs;
+        
+        /** Position in the clock ring, or -1 if the tile cannot be evicted */
+        int slot = -1;
+        boolean referenced;
+        
+        Tile(long[] walls) {
+            this.walls = walls;
+        }
+    }
+}
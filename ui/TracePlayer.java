@@ -0,0 +1,187 @@
+package ui;
+
+import model.*;
+import algorithms.*;
+import javax.swing.*;
+import javax.swing.event.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Plays a recorded {@link SearchTrace} back onto a grid with a Swing timer.
+ * <p>
+ * Each frame applies a fixed number of events, so the animation speed is
+ * independent of how fast the search itself ran. Playback can be paused,
+ * stepped one event at a time, and moved to any position; moving backwards
+ * clears the marks and replays from the beginning. All methods must be
+ * called on the event dispatch thread.
+ */
+public class TracePlayer {
+    private final Grid grid;
+    private final Timer timer;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private SearchTrace trace;
+    private int position;
+    private int eventsPerFrame = 1;
+    private Runnable onFinished;
+    
+    /**
+     * Creates a player for a grid at 60 frames per second.
+     * 
+     * @param grid The grid to mark
+     */
+    public TracePlayer(Grid grid) {
+        this.grid = grid;
+        this.timer = new Timer(1000 / 60, e -> advance(eventsPerFrame));
+    }
+    
+    /**
+     * Starts playing a trace from the beginning.
+     * 
+     * @param trace The trace to play
+     * @param onFinished Run once when playback reaches the end, or null
+     */
+    public void play(SearchTrace trace, Runnable onFinished) {
+        timer.stop();
+        grid.clearPath();
+        this.trace = trace;
+        this.position = 0;
+        this.onFinished = onFinished;
+        fireChanged();
+        resume();
+    }
+    
+    /**
+     * Continues playback from the current position.
+     */
+    public void resume() {
+        if (trace != null && position < trace.size()) {
+            timer.start();
+            fireChanged();
+        }
+    }
+    
+    /**
+     * Pauses playback.
+     */
+    public void pause() {
+        timer.stop();
+        fireChanged();
+    }
+    
+    /**
+     * Stops playback and forgets the finish callback.
+     */
+    public void stop() {
+        timer.stop();
+        onFinished = null;
+        fireChanged();
+    }
+    
+    /**
+     * Applies the next event while paused.
+     */
+    public void step() {
+        timer.stop();
+        advance(1);
+    }
+    
+    /**
+     * Moves playback to an event position.
+     * 
+     * @param target Number of events that should be applied
+     */
+    public void seek(int target) {
+        if (trace == null) return;
+        target = Math.max(0, Math.min(target, trace.size()));
+        if (target < position) {
+            grid.clearPath();
+            position = 0;
+        }
+        advance(target - position);
+    }
+    
+    private void advance(int count) {
+        if (trace == null) return;
+        int end = Math.min(position + count, trace.size());
+        for (; position < end; position++) {
+            apply(trace.getType(position), trace.getCell(position));
+        }
+        if (position == trace.size()) {
+            timer.stop();
+            if (onFinished != null) {
+                Runnable callback = onFinished;
+                onFinished = null;
+                callback.run();
+            }
+        }
+        fireChanged();
+    }
+    
+    /**
+     * Marks the cell of one event, leaving the endpoints and walls alone.
+     */
+    private void apply(byte type, int cell) {
+        if (cell == grid.getStartIndex() || cell == grid.getEndIndex() || grid.isWall(cell)) return;
+        switch (type) {
+            case SearchTrace.VISIT:
+                grid.setCellType(cell, Cell.CellType.VISITED);
+                break;
+            case SearchTrace.PUSH:
+                grid.setCellType(cell, Cell.CellType.FRONTIER);
+                break;
+            case SearchTrace.PATH:
+                grid.setCellType(cell, Cell.CellType.PATH);
+                break;
+        }
+    }
+    
+    /**
+     * Sets how many events each frame applies.
+     */
+    public void setEventsPerFrame(int eventsPerFrame) {
+        this.eventsPerFrame = Math.max(1, eventsPerFrame);
+    }
+    
+    /**
+     * Sets the frame rate.
+     */
+    public void setFps(int fps) {
+        timer.setDelay(1000 / Math.max(1, fps));
+    }
+    
+    /**
+     * Checks whether playback is running.
+     */
+    public boolean isPlaying() {
+        return timer.isRunning();
+    }
+    
+    /**
+     * Gets the number of applied events.
+     */
+    public int getPosition() {
+        return position;
+    }
+    
+    /**
+     * Gets the loaded trace, or null.
+     */
+    public SearchTrace getTrace() {
+        return trace;
+    }
+    
+    /**
+     * Registers a listener for position and play state changes.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    private void fireChanged() {
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener listener : listeners) {
+            listener.stateChanged(event);
+        }
+    }
+}
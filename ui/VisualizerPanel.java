@@ -5,16 +5,51 @@ import algorithms.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.*;
 
 /**
  * Panel for displaying and interacting with the grid.
+ * <p>
+ * The grid is drawn into a retained back buffer. Grid lines are drawn once,
+ * and afterwards only cells reported as changed by the grid are redrawn,
+ * each with a repaint request for just its rectangle, so the cost of a
+ * frame depends on the number of changed cells rather than the grid size.
  */
-public class VisualizerPanel extends JPanel {
+public class VisualizerPanel extends JPanel implements GridListener {
+    /** Cell costs painted by the terrain modes */
+    static final int MUD_COST = 5;
+    static final int WATER_COST = 10;
+    private static final long SEARCH_TIMEOUT_SECONDS = 30;
+    private static final Color TERRAIN = new Color(139, 90, 43);
+    
     private Grid grid;
     private int cellSize = 20;
+    private final BufferedImage buffer;
+    
+    /** Cells changed since the last paint, guarded by dirtyLock */
+    private final Object dirtyLock = new Object();
+    private final long[] dirtyBits;
+    private int[] dirty = new int[64];
+    private int dirtyCount;
     private Pathfinder pathfinder;
-    private String mode = "WALL"; // WALL, START, END
-    private Thread pathfindingThread;
+    private final ComponentIndex components;
+    private String mode = "WALL"; // WALL, START, END, MUD, WATER
+    private final SearchScheduler scheduler = new SearchScheduler(1, 8);
+    /** The latest search, only touched on the event thread */
+    private SearchTask search;
+    private final TracePlayer player;
+    
+    /** Statistics of the last search, shown over the grid when enabled */
+    private SearchStats lastStats;
+    private boolean showStats;
+    
+    /** Distance field toward the end, drawn as a heatmap when not null */
+    private volatile FlowField field;
+    
+    /** Field distances copied once per paint, only touched on the event thread */
+    private int[] fieldDistances;
     
     /**
      * Creates visualizer panel.
@@ -23,11 +58,18 @@ public class VisualizerPanel extends JPanel {
      */
     public VisualizerPanel(Grid grid) {
         this.grid = grid;
-        this.pathfinder = new AStar(grid, this);
+        this.player = new TracePlayer(grid);
+        this.components = new ComponentIndex(grid);
+        setAlgorithm(new AStar(grid));
         
         setPreferredSize(new Dimension(grid.getCols() * cellSize, grid.getRows() * cellSize));
         setBackground(Color.WHITE);
         
+        buffer = new BufferedImage(grid.getCols() * cellSize, grid.getRows() * cellSize, BufferedImage.TYPE_INT_RGB);
+        dirtyBits = Bits.create(grid.size());
+        drawAll();
+        grid.addListener(this);
+        
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
@@ -55,10 +97,11 @@ public class VisualizerPanel extends JPanel {
         if (cell == null) return;
         
         if (button == MouseEvent.BUTTON3 || (button & MouseEvent.BUTTON3_DOWN_MASK) != 0) {
-            // Right click to remove a wall
+            // Right click to remove a wall or terrain
             if (cell.type == Cell.CellType.WALL) {
                 grid.setCellType(row, col, Cell.CellType.EMPTY);
             }
+            grid.setCost(grid.index(row, col), 1);
         } else {
             // Left click, changes depending on mode
             if (mode.equals("START")) {
@@ -67,6 +110,10 @@ public class VisualizerPanel extends JPanel {
             } else if (mode.equals("END")) {
                 grid.setCellType(row, col, Cell.CellType.END);
                 this.mode = "WALL"; // Switch back to wall mode after placing
+            } else if (mode.equals("MUD")) {
+                paintTerrain(cell, grid.index(row, col), MUD_COST);
+            } else if (mode.equals("WATER")) {
+                paintTerrain(cell, grid.index(row, col), WATER_COST);
             } else {
                 // WALL mode
                 if (cell.type == Cell.CellType.EMPTY) {
@@ -74,91 +121,302 @@ public class VisualizerPanel extends JPanel {
                 }
             }
         }
-        
-        repaint();
     }
     
     /**
-     * Paints the grid.
+     * Sets the cost of a cell that is not a wall.
+     */
+    private void paintTerrain(Cell cell, int index, int cost) {
+        if (cell.type != Cell.CellType.WALL) {
+            grid.setCost(index, cost);
+        }
+    }
+    
+    /**
+     * Draws every cell and the grid lines into the back buffer.
+     */
+    private void drawAll() {
+        Graphics2D g = buffer.createGraphics();
+        g.setColor(Color.LIGHT_GRAY);
+        g.fillRect(0, 0, buffer.getWidth(), buffer.getHeight());
+        for (int index = 0; index < grid.size(); index++) {
+            drawCell(g, index);
+        }
+        g.dispose();
+    }
+    
+    /**
+     * Fills the inside of a cell, leaving its grid lines untouched.
+     */
+    private void drawCell(Graphics2D g, int index) {
+        switch (grid.getCellType(index)) {
+            case EMPTY:
+                g.setColor(terrainColor(grid.getCost(index)));
+                break;
+            case WALL:
+                g.setColor(Color.BLACK);
+                break;
+            case START:
+                g.setColor(Color.GREEN);
+                break;
+            case END:
+                g.setColor(Color.RED);
+                break;
+            case VISITED:
+                g.setColor(Color.CYAN);
+                break;
+            case PATH:
+                g.setColor(Color.YELLOW);
+                break;
+            case FRONTIER:
+                g.setColor(Color.PINK);
+                break;
+        }
+        g.fillRect(grid.getCol(index) * cellSize + 1, grid.getRow(index) * cellSize + 1, cellSize - 1, cellSize - 1);
+    }
+    
+    /**
+     * Shades empty cells from white at cost 1 to brown at cost 16 and above.
+     */
+    private static Color terrainColor(int cost) {
+        if (cost == 1) {
+            return Color.WHITE;
+        }
+        float t = Math.min(1f, (cost - 1) / 15f);
+        return new Color(Math.round(255 + (TERRAIN.getRed() - 255) * t),
+                         Math.round(255 + (TERRAIN.getGreen() - 255) * t),
+                         Math.round(255 + (TERRAIN.getBlue() - 255) * t));
+    }
+    
+    /**
+     * Queues a changed cell for redrawing and repaints its rectangle. May be
+     * called from any thread.
+     */
+    @Override
+    public void cellChanged(int index) {
+        FlowField field = this.field;
+        if (field != null && field.getGoal() != grid.getEndIndex()) {
+            field.setGoal(grid.getEndIndex());
+            repaint();
+        }
+        synchronized (dirtyLock) {
+            if (Bits.get(dirtyBits, index)) return;
+            Bits.set(dirtyBits, index);
+            if (dirtyCount == dirty.length) {
+                dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+            }
+            dirty[dirtyCount++] = index;
+        }
+        repaint(grid.getCol(index) * cellSize, grid.getRow(index) * cellSize, cellSize, cellSize);
+    }
+    
+    @Override
+    public void wallChanged(int index, boolean wall) {
+        // Walls are drawn through cellChanged, but they can change
+        // distances anywhere in the heatmap
+        if (field != null) {
+            repaint();
+        }
+    }
+    
+    @Override
+    public void costChanged(int index, int oldCost, int newCost) {
+        if (field != null) {
+            repaint();
+        }
+    }
+    
+    /**
+     * Redraws the queued cells into the back buffer and copies the clipped
+     * area to the screen.
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         
-        for (int i = 0; i < grid.getRows(); i++) {
-            for (int j = 0; j < grid.getCols(); j++) {
-                Cell cell = grid.getCell(i, j);
-                int x = j * cellSize;
-                int y = i * cellSize;
-                
-                switch (cell.type) {
-                    case EMPTY:
-                        g.setColor(Color.WHITE);
-                        break;
-                    case WALL:
-                        g.setColor(Color.BLACK);
-                        break;
-                    case START:
-                        g.setColor(Color.GREEN);
-                        break;
-                    case END:
-                        g.setColor(Color.RED);
-                        break;
-                    case VISITED:
-                        g.setColor(Color.CYAN);
-                        break;
-                    case PATH:
-                        g.setColor(Color.YELLOW);
-                        break;
+        synchronized (dirtyLock) {
+            if (dirtyCount > 0) {
+                Graphics2D bufferGraphics = buffer.createGraphics();
+                for (int i = 0; i < dirtyCount; i++) {
+                    Bits.clear(dirtyBits, dirty[i]);
+                    drawCell(bufferGraphics, dirty[i]);
                 }
-                
-                g.fillRect(x, y, cellSize, cellSize);
-                g.setColor(Color.LIGHT_GRAY);
-                g.drawRect(x, y, cellSize, cellSize);
+                bufferGraphics.dispose();
+                dirtyCount = 0;
             }
         }
+        g.drawImage(buffer, 0, 0, null);
+        
+        FlowField field = this.field;
+        if (field != null) {
+            drawField(g, field);
+        }
+        
+        SearchStats stats = lastStats;
+        if (showStats && stats != null) {
+            drawStats(g, stats);
+        }
     }
     
     /**
-     * Starts pathfinding algorithm.
+     * Draws the statistics of a search in a translucent box in the top
+     * left corner.
      */
-    public void findPath() {
-        // Stop any running pathfinding
-        if (pathfindingThread != null && pathfindingThread.isAlive()) {
-            pathfindingThread.interrupt();
+    private void drawStats(Graphics g, SearchStats stats) {
+        String[] lines = {
+            "Expanded: " + stats.getExpansions(),
+            "Generated: " + count(stats.getGenerated()),
+            "Pushes/pops: " + count(stats.getPushes()) + " / " + count(stats.getPops()),
+            "Peak frontier: " + count(stats.getPeakFrontier()),
+            stats.isFound() ? "Path: " + stats.getPathLength() + " steps, cost " + stats.getCost() : "Path: none",
+            String.format("Time: %.3f ms", stats.getNanos() / 1e6)
+        };
+        FontMetrics metrics = g.getFontMetrics();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, metrics.stringWidth(line));
         }
+        int lineHeight = metrics.getHeight();
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRect(4, 4, width + 12, lines.length * lineHeight + 8);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 10, 8 + i * lineHeight + metrics.getAscent());
+        }
+    }
+    
+    /**
+     * Tints the open cells inside the clip by their distance to the end,
+     * from blue next to it to red farthest away. Cells that cannot reach
+     * the end are left untinted.
+     */
+    private void drawField(Graphics g, FlowField field) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int firstRow = Math.max(0, clip.y / cellSize);
+        int lastRow = Math.min(grid.getRows() - 1, (clip.y + clip.height) / cellSize);
+        int firstCol = Math.max(0, clip.x / cellSize);
+        int lastCol = Math.min(grid.getCols() - 1, (clip.x + clip.width) / cellSize);
+        if (fieldDistances == null) {
+            fieldDistances = new int[grid.size()];
+        }
+        float max = Math.max(1, field.copyDistances(fieldDistances));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int index = grid.index(row, col);
+                int distance = fieldDistances[index];
+                if (distance == FlowField.UNREACHABLE || grid.isWall(index)) continue;
+                float t = distance / max;
+                g.setColor(new Color(Math.round(255 * t), 0, Math.round(255 * (1 - t)), 110));
+                g.fillRect(col * cellSize + 1, row * cellSize + 1, cellSize - 1, cellSize - 1);
+            }
+        }
+    }
+    
+    private static String count(long value) {
+        return value < 0 ? "n/a" : Long.toString(value);
+    }
+    
+    /**
+     * Runs the selected algorithm at full speed in the background while
+     * recording a trace, then plays the trace back.
+     */
+    public void findPath() {
+        stopPathfinding();
+        grid.clearPath();
         
-        pathfindingThread = new Thread(() -> {
-            try {
-                boolean found = pathfinder.findPath();
-                if (!found && !Thread.currentThread().isInterrupted()) {
-                    JOptionPane.showMessageDialog(this, "No path found!");
-                }
-            } catch (InterruptedException e) {
-                // Pathfinding was interrupted, which is fine
+        SearchTrace trace = new SearchTrace(grid.getRows(), grid.getCols());
+        SearchTask task;
+        try {
+            task = scheduler.submit(pathfinder, grid.getStartIndex(), grid.getEndIndex(), trace,
+                                    SEARCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            JOptionPane.showMessageDialog(this, "Too many searches queued, try again shortly.");
+            return;
+        }
+        search = task;
+        task.result().whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            // A newer search has replaced this one
+            if (search != task) return;
+            if (error instanceof TimeoutException) {
+                JOptionPane.showMessageDialog(this, "Search timed out after " + SEARCH_TIMEOUT_SECONDS + " seconds.");
+            } else if (error == null) {
+                lastStats = result.getStats();
+                repaint();
+                player.play(trace, result.isFound() ? null
+                        : () -> JOptionPane.showMessageDialog(this, "No path found!"));
             }
-        });
-        pathfindingThread.start();
+        }));
+    }
+    
+    /**
+     * Plays a previously saved trace on this grid.
+     * 
+     * @param trace The trace to play
+     * @throws IllegalArgumentException if the trace was recorded on a grid
+     *         of a different size or marks cells that are now walls
+     */
+    public void playTrace(SearchTrace trace) {
+        if (trace.getRows() != grid.getRows() || trace.getCols() != grid.getCols()) {
+            throw new IllegalArgumentException("Trace was recorded on a " + trace.getRows() + "x" + trace.getCols() + " grid");
+        }
+        for (int i = 0; i < trace.size(); i++) {
+            int cell = trace.getCell(i);
+            if (cell < 0 || cell >= grid.size()) {
+                throw new IllegalArgumentException("Trace marks cell " + cell + " outside the grid");
+            }
+            if (grid.isWall(cell)) {
+                throw new IllegalArgumentException("Trace was recorded with different walls");
+            }
+        }
+        stopPathfinding();
+        player.play(trace, null);
+    }
+    
+    /**
+     * Gets the trace player, for playback controls.
+     */
+    public TracePlayer getPlayer() {
+        return player;
     }
     
     /**
      * Clears path visualization.
      */
     public void clearPath() {
-        // Stop any running pathfinding
-        if (pathfindingThread != null && pathfindingThread.isAlive()) {
-            pathfindingThread.interrupt();
-        }
-        
+        stopPathfinding();
         grid.clearPath();
-        repaint();
     }
     
     /**
-     * Sets pathfinding algorithm.
+     * Sets pathfinding algorithm. Queries between disconnected cells are
+     * answered without running it.
      */
     public void setAlgorithm(Pathfinder algorithm) {
-        this.pathfinder = algorithm;
+        this.pathfinder = new ReachabilityFilter(grid, components, algorithm);
+    }
+    
+    /**
+     * Shows or hides the heatmap of distances to the end.
+     */
+    public void setShowField(boolean showField) {
+        if (showField && field == null) {
+            field = new FlowField(grid, grid.getEndIndex());
+        } else if (!showField && field != null) {
+            field.close();
+            field = null;
+        }
+        repaint();
+    }
+    
+    /**
+     * Shows or hides the statistics of the last search.
+     */
+    public void setShowStats(boolean showStats) {
+        this.showStats = showStats;
+        repaint();
     }
     
     /**
@@ -172,32 +430,21 @@ public class VisualizerPanel extends JPanel {
      * Resets grid to initial state.
      */
     public void reset() {
-        // Stop any running pathfinding
-        if (pathfindingThread != null && pathfindingThread.isAlive()) {
-            pathfindingThread.interrupt();
-        }
-        
+        stopPathfinding();
         grid.clearPath();
-        for (int i = 0; i < grid.getRows(); i++) {
-            for (int j = 0; j < grid.getCols(); j++) {
-                Cell cell = grid.getCell(i, j);
-                if (cell.type == Cell.CellType.WALL) {
-                    cell.type = Cell.CellType.EMPTY;
-                }
-            }
-        }
+        grid.clearWalls();
+        grid.clearCosts();
         grid.setCellType(0, 0, Cell.CellType.START);
         grid.setCellType(grid.getRows() - 1, grid.getCols() - 1, Cell.CellType.END);
-        repaint();
     }
     
     /**
-     * Stops running pathfinding algorithm.
+     * Stops running pathfinding algorithm and playback.
      */
     public void stopPathfinding() {
-        if (pathfindingThread != null && pathfindingThread.isAlive()) {
-            pathfindingThread.interrupt();
+        if (search != null) {
+            search.cancel();
         }
+        player.stop();
     }
 }
-